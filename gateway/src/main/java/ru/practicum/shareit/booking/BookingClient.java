@@ -1,71 +1,105 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.beans.factory.annotation.Value;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import org.springframework.http.ResponseEntity;
-import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReactiveBaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuard;
 import org.springframework.stereotype.Service;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
-public class BookingClient extends BaseClient {
+public class BookingClient extends ReactiveBaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
     public BookingClient(@Value("${shareit-server.url}") String serverUrl,
-                         RestTemplateBuilder builder) {
-        super(builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                .build()
-        );
+                         WebClient.Builder builder,
+                         RequestCoalescer coalescer,
+                         ResponseCache cache,
+                         ServerCallGuard guard) {
+        super(serverUrl + API_PREFIX, builder, coalescer, cache, guard.forClient("bookings"));
     }
 
-    public ResponseEntity<Object> getBookings(Long userId,
-                                              BookingState state,
-                                              Integer from,
-                                              Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getBookings(Long userId,
+                                                    BookingState state,
+                                                    Integer from,
+                                                    Integer size,
+                                                    String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("?state={state}&from={from}&size={size}", cursor, parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> getOwnerBookings(Long userId,
-                                                   BookingState state,
-                                                   Integer from,
-                                                   Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getOwnerBookings(Long userId,
+                                                         BookingState state,
+                                                         Integer from,
+                                                         Integer size,
+                                                         String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("/owner?state={state}&from={from}&size={size}", cursor, parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> createBooking(Long userId,
-                                                BookingRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public Mono<ResponseEntity<Flux<ServerSentEvent<String>>>> stream(Long userId) {
+        return stream("/stream", userId);
     }
 
-    public ResponseEntity<Object> getBooking(Long userId,
-                                             Long bookingId) {
+    public Mono<ResponseEntity<Object>> createBooking(Long userId,
+                                                      BookingRequestDto requestDto,
+                                                      String idempotencyKey) {
+        return post("", userId, null, requestDto, idempotencyKey);
+    }
+
+    public Mono<ResponseEntity<Object>> createBookings(Long userId,
+                                                       List<BookingRequestDto> requestDtos,
+                                                       String idempotencyKey) {
+        return post("/batch", userId, null, requestDtos, idempotencyKey);
+    }
+
+    public Mono<ResponseEntity<Object>> getBooking(Long userId,
+                                                   Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> approveBooking(Integer bookingId,
-                                                 Boolean approved,
-                                                 Long userId) {
+    public Mono<ResponseEntity<Object>> approveBooking(Integer bookingId,
+                                                       Boolean approved,
+                                                       Long userId,
+                                                       String ifMatch) {
         Map<String, Object> parameters = Map.of("approved", approved);
         String path = "/" + bookingId + "?approved={approved}";
-        return patch(path, userId, parameters, null);
+        return patch(path, userId, parameters, null, ifMatch);
+    }
+
+    public Mono<ResponseEntity<Object>> approveBookings(List<Long> bookingIds,
+                                                        Boolean approved,
+                                                        Long userId) {
+        Map<String, Object> parameters = Map.of("approved", approved);
+        return patch("/approve?approved={approved}", userId, parameters, bookingIds);
+    }
+
+    private static String withCursor(String path, String cursor, Map<String, Object> parameters) {
+        if (cursor == null || cursor.isBlank()) {
+            return path;
+        }
+        parameters.put("cursor", cursor);
+        return path + "&cursor={cursor}";
     }
 }
\ No newline at end of file
@@ -1,17 +1,28 @@
 package ru.practicum.shareit.booking;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import org.springframework.validation.annotation.Validated;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.stereotype.Controller;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ReactiveBaseClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+
 @Slf4j
 @Validated
 @Controller
@@ -19,47 +30,77 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private static final String HEADER_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final int MAX_BATCH_SIZE = 100;
     private final BookingClient bookingClient;
 
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<String>>>> stream(@RequestHeader(HEADER_SHARER_USER_ID) Long userId) {
+        return bookingClient.stream(userId);
+    }
+
     @GetMapping("/owner")
-    public ResponseEntity<Object> getOwnerBookings(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                   @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
-                                                   @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                   @RequestHeader(HEADER_SHARER_USER_ID) Long userId) {
+    public Mono<ResponseEntity<Object>> getOwnerBookings(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                         @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                         @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                         @RequestParam(name = "cursor", required = false) String cursor,
+                                                         @RequestHeader(HEADER_SHARER_USER_ID) Long userId) {
         var state = BookingState.from(stateParam).orElseThrow(
                 () -> new IllegalArgumentException("Unknown state: " + stateParam));
-        return bookingClient.getOwnerBookings(userId, state, from, size);
+        return bookingClient.getOwnerBookings(userId, state, from, size, cursor);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getBookings(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
-                                              @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                              @RequestHeader(HEADER_SHARER_USER_ID) Long userId) {
+    public Mono<ResponseEntity<Object>> getBookings(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                    @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                    @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                    @RequestParam(name = "cursor", required = false) String cursor,
+                                                    @RequestHeader(HEADER_SHARER_USER_ID) Long userId) {
         var state = BookingState.from(stateParam).orElseThrow(
                 () -> new IllegalArgumentException("Unknown state: " + stateParam));
-        return bookingClient.getBookings(userId, state, from, size);
+        return bookingClient.getBookings(userId, state, from, size, cursor);
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approveBooking(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId,
-                                                 @RequestParam(required = false) Boolean approved,
-                                                 @PathVariable Integer bookingId) {
-        return bookingClient.approveBooking(bookingId, approved, userId);
+    public Mono<ResponseEntity<Object>> approveBooking(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId,
+                                                       @RequestParam(required = false) Boolean approved,
+                                                       @PathVariable Integer bookingId,
+                                                       @RequestHeader(required = false, value = HttpHeaders.IF_MATCH) String ifMatch) {
+        return bookingClient.approveBooking(bookingId, approved, userId, ifMatch);
+    }
+
+    @PatchMapping("/approve")
+    public Mono<ResponseEntity<Object>> approveBookings(@RequestHeader(HEADER_SHARER_USER_ID) Long userId,
+                                                        @RequestParam Boolean approved,
+                                                        @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                        List<@NotNull Long> bookingIds) {
+        return bookingClient.approveBookings(bookingIds, approved, userId);
     }
 
     @Validated
     @PostMapping
-    public ResponseEntity<Object> createBooking(@RequestHeader(HEADER_SHARER_USER_ID) Long userId,
-                                                @RequestBody @Valid BookingRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> createBooking(@RequestHeader(HEADER_SHARER_USER_ID) Long userId,
+                                                      @RequestBody @Valid BookingRequestDto requestDto,
+                                                      @RequestHeader(required = false, value = ReactiveBaseClient.IDEMPOTENCY_KEY) String idempotencyKey) {
         if (requestDto.getStart().isAfter(requestDto.getEnd()))
             throw new IllegalArgumentException("Incorrect date of booking");
-        return bookingClient.createBooking(userId, requestDto);
+        return bookingClient.createBooking(userId, requestDto, idempotencyKey);
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> createBookings(@RequestHeader(HEADER_SHARER_USER_ID) Long userId,
+                                                       @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                       List<@Valid BookingRequestDto> requestDtos,
+                                                       @RequestHeader(required = false, value = ReactiveBaseClient.IDEMPOTENCY_KEY) String idempotencyKey) {
+        for (BookingRequestDto requestDto : requestDtos) {
+            if (requestDto.getStart().isAfter(requestDto.getEnd()))
+                throw new IllegalArgumentException("Incorrect date of booking");
+        }
+        return bookingClient.createBookings(userId, requestDtos, idempotencyKey);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader(HEADER_SHARER_USER_ID) Long userId,
-                                             @PathVariable Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(@RequestHeader(HEADER_SHARER_USER_ID) Long userId,
+                                                   @PathVariable Long bookingId) {
         return bookingClient.getBooking(userId, bookingId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,218 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriBuilderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.http.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Неблокирующий клиент сервера на WebClient: поток обработчика не ждёт ответа сервера. Ответ сервера передаётся
+ * клиенту гейтвея как есть: статус, заголовки содержимого и тело байтами, без разбора JSON и повторной
+ * сериализации. Тело читается в память целиком, не больше spring.codec.max-in-memory-size.
+ */
+public class ReactiveBaseClient {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    // заголовки относятся к соединению гейтвея с сервером, для ответа клиенту их выставляет Tomcat
+    private static final Set<String> NOT_FORWARDED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase()
+    );
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SERVER_SENT_EVENTS =
+            new ParameterizedTypeReference<>() {
+            };
+
+    protected final WebClient web;
+    private final UriBuilderFactory uriBuilderFactory;
+    private final RequestCoalescer coalescer;
+    private final ResponseCache cache;
+    private final UnaryOperator<Mono<ResponseEntity<Object>>> guard;
+
+    public ReactiveBaseClient(String serverUrl, WebClient.Builder builder, RequestCoalescer coalescer,
+                              ResponseCache cache, UnaryOperator<Mono<ResponseEntity<Object>>> guard) {
+        this.uriBuilderFactory = new DefaultUriBuilderFactory(serverUrl);
+        this.web = builder.uriBuilderFactory(uriBuilderFactory).build();
+        this.coalescer = coalescer;
+        this.cache = cache;
+        this.guard = guard;
+    }
+
+    protected Mono<ResponseEntity<Object>> get(String path) {
+        return get(path, null, null);
+    }
+
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
+        return get(path, userId, null);
+    }
+
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, null);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
+        return post(path, null, null, body);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
+        return post(path, userId, null, body);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+        return post(path, userId, parameters, body, null);
+    }
+
+    /**
+     * @param idempotencyKey Idempotency-Key клиента: повтор с тем же ключом сервер не выполнит второй раз
+     */
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                    T body, @Nullable String idempotencyKey) {
+        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body,
+                requestHeader(IDEMPOTENCY_KEY, idempotencyKey));
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
+        return put(path, userId, null, body);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body, null);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
+        return patch(path, null, null, body);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
+        return patch(path, userId, null, null);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
+        return patch(path, userId, null, body);
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+        return patch(path, userId, parameters, body, null);
+    }
+
+    /**
+     * @param ifMatch If-Match клиента: сервер применит изменение, только если версия записи не изменилась
+     */
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                     T body, @Nullable String ifMatch) {
+        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body,
+                requestHeader(HttpHeaders.IF_MATCH, ifMatch));
+    }
+
+    protected Mono<ResponseEntity<Object>> delete(String path) {
+        return delete(path, null, null);
+    }
+
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
+        return delete(path, userId, null);
+    }
+
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null, null);
+    }
+
+    /**
+     * Поток событий сервера (text/event-stream) отдаётся клиенту по событию, без накопления в гейтвее.
+     * Поток открыт долго, поэтому идёт мимо схлопывания, кэша и bulkhead: иначе каждый подписчик держал бы
+     * место в bulkhead, а автомат защиты считал бы поток медленным вызовом. Ответ сервера с ошибкой приходит
+     * как {@link org.springframework.web.reactive.function.client.WebClientResponseException}.
+     */
+    protected Mono<ResponseEntity<Flux<ServerSentEvent<String>>>> stream(String path, long userId) {
+        return web.get()
+                .uri(path)
+                .headers(headers -> {
+                    headers.addAll(defaultHeaders(userId));
+                    headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                })
+                .retrieve()
+                .toEntityFlux(SERVER_SENT_EVENTS);
+    }
+
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body,
+                                                                @Nullable HttpHeaders requestHeaders) {
+        URI uri = uriBuilderFactory.expand(path, parameters != null ? parameters : Map.of());
+        if (method == HttpMethod.GET) {
+            // ответы почти всех GET зависят от пользователя (даты бронирований видит только владелец вещи),
+            // поэтому пользователь всегда входит в ключ схлопывания и кэша.
+            // Ожидающие чужого ответа не ходят на сервер и не занимают места в bulkhead
+            String key = uri + " " + userId;
+            return coalescer.execute(key, () -> cache.execute(key,
+                    etag -> guard.apply(send(method, uri, userId, body, etag, null))));
+        }
+        return guard.apply(send(method, uri, userId, body, null, requestHeaders));
+    }
+
+    private <T> Mono<ResponseEntity<Object>> send(HttpMethod method, URI uri, Long userId, @Nullable T body,
+                                                  @Nullable String etag, @Nullable HttpHeaders requestHeaders) {
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(uri)
+                .headers(headers -> {
+                    headers.addAll(defaultHeaders(userId));
+                    if (etag != null) {
+                        headers.setIfNoneMatch(etag);
+                    }
+                    if (requestHeaders != null) {
+                        headers.addAll(requestHeaders);
+                    }
+                });
+
+        WebClient.RequestHeadersSpec<?> requestWithBody = body != null ? request.bodyValue(body) : request;
+        return requestWithBody.exchangeToMono(ReactiveBaseClient::prepareGatewayResponse);
+    }
+
+    /**
+     * Заголовок клиента, который передаётся серверу как есть; null, если клиент его не прислал.
+     */
+    @Nullable
+    private static HttpHeaders requestHeader(String name, @Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(name, value);
+        return headers;
+    }
+
+    private HttpHeaders defaultHeaders(Long userId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (userId != null) {
+            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+        }
+        return headers;
+    }
+
+    private static HttpHeaders forwardedHeaders(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        serverHeaders.forEach((name, values) -> {
+            if (!NOT_FORWARDED_HEADERS.contains(name.toLowerCase())) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
+
+    private static Mono<ResponseEntity<Object>> prepareGatewayResponse(ClientResponse response) {
+        HttpHeaders headers = forwardedHeaders(response.headers().asHttpHeaders());
+        return response.bodyToMono(byte[].class)
+                .map(body -> new ResponseEntity<Object>(body, headers, response.statusCode()))
+                .defaultIfEmpty(new ResponseEntity<>(headers, response.statusCode()));
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Схлопывание одинаковых одновременных запросов: пока запрос с тем же ключом в полёте, новые ждут его ответ,
+ * а не идут на сервер. Ведущий запрос доводится до конца, даже если его клиент отключился.
+ * Ожидающие ждут не дольше max-wait, после чего идут на сервер сами.
+ * Ответ не кэшируется: следующий запрос после завершения ведущего снова идёт на сервер.
+ */
+@Component
+public class RequestCoalescer {
+    private final ConcurrentMap<String, CompletableFuture<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final Counter upstream;
+    private final Counter collapsed;
+    private final Counter timedOut;
+
+    public RequestCoalescer(ServerClientProperties properties, MeterRegistry registry) {
+        this.enabled = properties.coalescingEnabled();
+        this.maxWait = properties.coalescingMaxWait();
+        this.upstream = requests(registry, "upstream");
+        this.collapsed = requests(registry, "collapsed");
+        this.timedOut = requests(registry, "timeout");
+        Gauge.builder("gateway.coalescing.in.flight", inFlight, ConcurrentMap::size)
+                .description("Запросы к серверу, к которым могут присоединиться одинаковые")
+                .register(registry);
+    }
+
+    public Mono<ResponseEntity<Object>> execute(String key, Supplier<Mono<ResponseEntity<Object>>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        return Mono.defer(() -> {
+            CompletableFuture<ResponseEntity<Object>> leader = new CompletableFuture<>();
+            CompletableFuture<ResponseEntity<Object>> existing = inFlight.putIfAbsent(key, leader);
+            if (existing != null) {
+                return Mono.fromFuture(existing, true)
+                        .doOnSuccess(response -> collapsed.increment())
+                        .timeout(maxWait, Mono.defer(() -> {
+                            timedOut.increment();
+                            return call.get();
+                        }));
+            }
+
+            upstream.increment();
+            call.get()
+                    .doOnSuccess(response -> inFlight.remove(key, leader))
+                    .doOnError(error -> inFlight.remove(key, leader))
+                    .subscribe(leader::complete, leader::completeExceptionally, () -> leader.complete(null));
+            return Mono.fromFuture(leader, true);
+        });
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("gateway.coalescing.requests")
+                .description("GET-запросы к серверу: upstream — ушли на сервер, collapsed — получили чужой ответ, "
+                        + "timeout — не дождались чужого ответа и ушли на сервер")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Кэш ответов сервера с ETag. Ответ из кэша не отдаётся без проверки: запрос уходит на сервер с If-None-Match,
+ * и на 304 клиент получает сохранённое тело, которое сервер уже не передаёт. Так ответ всегда актуален,
+ * а экономятся сериализация и передача тела. Кэш ограничен суммарным размером тел, вытесняются давно
+ * не запрошенные ответы.
+ */
+@Component
+public class ResponseCache {
+    // заголовки и ключ тоже занимают память, считаем их грубо
+    private static final int ENTRY_OVERHEAD = 512;
+
+    private final boolean enabled;
+    private final Cache<String, ResponseEntity<Object>> responses;
+    private final Counter notModified;
+    private final Counter modified;
+    private final Counter missed;
+
+    public ResponseCache(ServerClientProperties properties, MeterRegistry registry) {
+        this.enabled = properties.responseCacheEnabled();
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(properties.responseCacheMaxSize().toBytes())
+                .weigher((String key, ResponseEntity<Object> response) ->
+                        key.length() + ((byte[]) response.getBody()).length + ENTRY_OVERHEAD)
+                .build();
+        this.notModified = requests(registry, "not-modified");
+        this.modified = requests(registry, "modified");
+        this.missed = requests(registry, "miss");
+        Gauge.builder("gateway.response.cache.size", responses, Cache::estimatedSize)
+                .description("Ответы сервера в кэше гейтвея")
+                .register(registry);
+    }
+
+    /**
+     * @param call запрос к серверу; получает ETag сохранённого ответа для If-None-Match или null
+     */
+    public Mono<ResponseEntity<Object>> execute(String key, Function<String, Mono<ResponseEntity<Object>>> call) {
+        if (!enabled) {
+            return call.apply(null);
+        }
+        return Mono.defer(() -> {
+            ResponseEntity<Object> cached = responses.getIfPresent(key);
+            String etag = cached != null ? cached.getHeaders().getETag() : null;
+            return call.apply(etag).map(response -> handle(key, cached, response));
+        });
+    }
+
+    private ResponseEntity<Object> handle(String key, @Nullable ResponseEntity<Object> cached,
+                                          ResponseEntity<Object> response) {
+        if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            notModified.increment();
+            return revalidated(key, cached, response);
+        }
+        (cached != null ? modified : missed).increment();
+        if (response.getStatusCode() == HttpStatus.OK && response.getHeaders().getETag() != null
+                && response.getBody() instanceof byte[]) {
+            responses.put(key, response);
+        } else {
+            responses.invalidate(key);
+        }
+        return response;
+    }
+
+    /**
+     * Заголовки 304 (Date, ETag) новее сохранённых и заменяют их, тело и его заголовки остаются прежними.
+     */
+    private ResponseEntity<Object> revalidated(String key, ResponseEntity<Object> cached,
+                                               ResponseEntity<Object> notModified) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(cached.getHeaders());
+        notModified.getHeaders().forEach((name, values) -> {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                headers.put(name, values);
+            }
+        });
+        ResponseEntity<Object> response = new ResponseEntity<>(cached.getBody(), headers, HttpStatus.OK);
+        responses.put(key, response);
+        return response;
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("gateway.response.cache.requests")
+                .description("GET-запросы к серверу: not-modified — тело взято из кэша, modified — ответ в кэше "
+                        + "устарел, miss — ответа в кэше не было")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Изоляция клиентов сервера друг от друга. У каждого клиента свой bulkhead — предел одновременных запросов,
+ * поэтому медленный эндпоинт занимает только свою долю общего пула соединений, а запросы сверх предела сразу
+ * отклоняются. И свой автомат защиты: после череды ошибок и медленных ответов запросы клиента отклоняются,
+ * не дожидаясь таймаута, пока сервер не восстановится.
+ * Настройки — resilience4j.bulkhead.* и resilience4j.circuitbreaker.*, имя экземпляра — имя клиента.
+ */
+@Component
+public class ServerCallGuard {
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final MeterRegistry registry;
+
+    public ServerCallGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads, MeterRegistry registry) {
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.registry = registry;
+    }
+
+    public UnaryOperator<Mono<ResponseEntity<Object>>> forClient(String name) {
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(name);
+        Bulkhead bulkhead = bulkheads.bulkhead(name);
+        // у resilience4j для bulkhead есть только число свободных мест, отказы считаем сами
+        Counter rejected = Counter.builder("gateway.bulkhead.rejected")
+                .description("Запросы к серверу, отклонённые с 503 из-за предела одновременных запросов клиента")
+                .tag("name", name)
+                .register(registry);
+        bulkhead.getEventPublisher().onCallRejected(event -> rejected.increment());
+
+        // автомат снаружи, чтобы в разомкнутом состоянии запрос не занимал место в bulkhead;
+        // сами отказы bulkhead автомат не считает ошибками сервера (ignore-exceptions в настройках)
+        return call -> call.transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+}
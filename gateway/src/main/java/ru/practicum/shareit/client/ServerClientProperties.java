@@ -0,0 +1,33 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки общего пула соединений гейтвея с сервером и обработки его ответов.
+ *
+ * @param maxConnections         всего соединений в пуле
+ * @param maxConnectionsPerRoute соединений к одному хосту; все клиенты ходят на один сервер
+ * @param connectTimeout         установка TCP-соединения
+ * @param responseTimeout        ожидание ответа сервера
+ * @param idleTimeout            простаивающие дольше соединения закрываются; должно быть меньше keep-alive сервера
+ *                               (60 с у Tomcat), иначе запрос может уйти в соединение, которое сервер уже закрыл
+ * @param coalescingEnabled      одинаковые одновременные GET-запросы идут на сервер одним запросом
+ * @param coalescingMaxWait      сколько запрос ждёт ответа на такой же запрос, прежде чем пойти на сервер сам
+ * @param responseCacheEnabled   ответы сервера с ETag хранятся и перепроверяются через If-None-Match
+ * @param responseCacheMaxSize   предел суммарного размера тел в кэше ответов
+ */
+@ConfigurationProperties(prefix = "shareit-server.client")
+public record ServerClientProperties(@DefaultValue("200") int maxConnections,
+                                     @DefaultValue("200") int maxConnectionsPerRoute,
+                                     @DefaultValue("2s") Duration connectTimeout,
+                                     @DefaultValue("30s") Duration responseTimeout,
+                                     @DefaultValue("30s") Duration idleTimeout,
+                                     @DefaultValue("true") boolean coalescingEnabled,
+                                     @DefaultValue("2s") Duration coalescingMaxWait,
+                                     @DefaultValue("true") boolean responseCacheEnabled,
+                                     @DefaultValue("64MB") DataSize responseCacheMaxSize) {
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Predicate;
+
+/**
+ * Ответы сервера с кодом 5xx — ошибки для автомата защиты, хотя клиент получает их как обычный ответ.
+ * Ответы 4xx — ошибки запроса, а не сервера, и автомат не размыкают.
+ */
+public class ServerErrorResult implements Predicate<Object> {
+    @Override
+    public boolean test(Object result) {
+        return result instanceof ResponseEntity<?> response && response.getStatusCode().is5xxServerError();
+    }
+}
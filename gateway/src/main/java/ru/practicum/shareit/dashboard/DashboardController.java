@@ -0,0 +1,22 @@
+package ru.practicum.shareit.dashboard;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/dashboard")
+public class DashboardController {
+    private static final String HEADER_SHARER_USER_ID = "X-Sharer-User-Id";
+    private final DashboardService dashboardService;
+
+    @GetMapping
+    public Mono<ResponseEntity<Object>> getDashboard(@RequestHeader(HEADER_SHARER_USER_ID) Long userId) {
+        return dashboardService.getDashboard(userId);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.dashboard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param sectionTimeout сколько ждать ответа сервера для одного раздела; не дождавшись, раздел отдаётся пустым
+ * @param pageSize       размер первой страницы вещей и бронирований
+ */
+@ConfigurationProperties(prefix = "shareit-gateway.dashboard")
+public record DashboardProperties(@DefaultValue("2s") Duration sectionTimeout,
+                                  @DefaultValue("10") int pageSize) {
+}
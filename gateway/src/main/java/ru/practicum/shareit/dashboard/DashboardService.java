@@ -0,0 +1,135 @@
+package ru.practicum.shareit.dashboard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.error.ErrorResponse;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.request.ItemRequestClient;
+import ru.practicum.shareit.user.UserClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Стартовый экран приложения одним запросом: пользователь, его вещи, бронирования, бронирования его вещей
+ * и его запросы. Разделы запрашиваются у сервера одновременно, поэтому ответ приходит за время самого
+ * медленного из них. Раздел, который не ответил за section-timeout или ответил ошибкой, отдаётся как null,
+ * а причина — в errors; остальные разделы отдаются как есть.
+ */
+@Service
+@EnableConfigurationProperties(DashboardProperties.class)
+public class DashboardService {
+    static final String USER = "user";
+    static final String ITEMS = "items";
+    static final String BOOKINGS = "bookings";
+    static final String OWNER_BOOKINGS = "ownerBookings";
+    static final String REQUESTS = "requests";
+
+    private final UserClient userClient;
+    private final ItemClient itemClient;
+    private final BookingClient bookingClient;
+    private final ItemRequestClient itemRequestClient;
+    private final DashboardProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+
+    public DashboardService(UserClient userClient, ItemClient itemClient, BookingClient bookingClient,
+                            ItemRequestClient itemRequestClient, DashboardProperties properties,
+                            ObjectMapper objectMapper, MeterRegistry registry) {
+        this.userClient = userClient;
+        this.itemClient = itemClient;
+        this.bookingClient = bookingClient;
+        this.itemRequestClient = itemRequestClient;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+    }
+
+    public Mono<ResponseEntity<Object>> getDashboard(long userId) {
+        int size = properties.pageSize();
+        List<Mono<Section>> sections = List.of(
+                section(USER, userClient.getUser(userId)),
+                section(ITEMS, itemClient.getItems(userId, 0, size)),
+                section(BOOKINGS, bookingClient.getBookings(userId, BookingState.ALL, 0, size, null)),
+                section(OWNER_BOOKINGS, bookingClient.getOwnerBookings(userId, BookingState.ALL, 0, size, null)),
+                section(REQUESTS, itemRequestClient.getItemRequests(userId)));
+        return Mono.zip(sections, results -> merge(results));
+    }
+
+    private Mono<Section> section(String name, Mono<ResponseEntity<Object>> call) {
+        return call.timeout(properties.sectionTimeout())
+                .map(response -> new Section(name, response, null))
+                .onErrorResume(error -> Mono.just(new Section(name, null, error)))
+                .doOnNext(section -> count(section));
+    }
+
+    private ResponseEntity<Object> merge(Object[] results) {
+        Section user = (Section) results[0];
+        if (user.response() != null && user.response().getStatusCode().is4xxClientError()) {
+            // без пользователя остальные разделы не имеют смысла: отвечаем так же, как GET /users/{id}
+            return user.response();
+        }
+
+        ObjectNode dashboard = objectMapper.createObjectNode();
+        ObjectNode errors = objectMapper.createObjectNode();
+        for (Object result : results) {
+            Section section = (Section) result;
+            if (section.isOk()) {
+                byte[] body = (byte[]) section.response().getBody();
+                if (body != null && body.length > 0) {
+                    // тело сервера уже JSON: вставляем его без разбора
+                    dashboard.putRawValue(section.name(), new RawValue(new String(body, StandardCharsets.UTF_8)));
+                } else {
+                    dashboard.putNull(section.name());
+                }
+            } else {
+                dashboard.putNull(section.name());
+                errors.set(section.name(), error(section));
+            }
+        }
+        dashboard.set("errors", errors);
+        return ResponseEntity.ok(dashboard);
+    }
+
+    private JsonNode error(Section section) {
+        if (section.error() instanceof TimeoutException) {
+            return objectMapper.valueToTree(new ErrorResponse("Истекло время ожидания ответа сервера"));
+        }
+        if (section.error() != null) {
+            return objectMapper.valueToTree(new ErrorResponse(section.error().getMessage()));
+        }
+        byte[] body = (byte[]) section.response().getBody();
+        if (body != null && body.length > 0) {
+            return objectMapper.getNodeFactory().rawValueNode(new RawValue(new String(body, StandardCharsets.UTF_8)));
+        }
+        return objectMapper.valueToTree(new ErrorResponse("Сервер ответил " + section.response().getStatusCode()));
+    }
+
+    private void count(Section section) {
+        String result = section.isOk() ? "ok" : section.error() instanceof TimeoutException ? "timeout" : "error";
+        Counter.builder("gateway.dashboard.sections")
+                .description("Разделы стартового экрана: ok — получены, timeout — не дождались, error — ошибка")
+                .tag("section", section.name())
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    private record Section(String name, @Nullable ResponseEntity<Object> response, @Nullable Throwable error) {
+        boolean isOk() {
+            return response != null && response.getStatusCode().is2xxSuccessful();
+        }
+    }
+}
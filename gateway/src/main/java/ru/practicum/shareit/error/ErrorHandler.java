@@ -1,10 +1,16 @@
 package ru.practicum.shareit.error;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.util.Objects;
 
@@ -30,6 +36,38 @@ public class ErrorHandler {
         return new ErrorResponse(Objects.requireNonNull(e.getFieldError()).getDefaultMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(SERVICE_UNAVAILABLE)
+    public ErrorResponse handle(final CallNotPermittedException e) {
+        return new ErrorResponse("Сервер недоступен");
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(SERVICE_UNAVAILABLE)
+    public ErrorResponse handle(final BulkheadFullException e) {
+        return new ErrorResponse("Сервер перегружен");
+    }
+
+    /**
+     * Ответ сервера больше spring.codec.max-in-memory-size: обычно слишком большая страница списка.
+     */
+    @ExceptionHandler
+    @ResponseStatus(BAD_GATEWAY)
+    public ErrorResponse handle(final DataBufferLimitException e) {
+        return new ErrorResponse("Ответ сервера слишком большой, уменьшите размер страницы");
+    }
+
+    /**
+     * Ошибка сервера на запрос потока событий передаётся клиенту как есть. Тип ответа задаётся явно:
+     * клиент потока принимает только text/event-stream.
+     */
+    @ExceptionHandler
+    public ResponseEntity<byte[]> handle(final WebClientResponseException e) {
+        return ResponseEntity.status(e.getStatusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(e.getResponseBodyAsByteArray());
+    }
+
     @ExceptionHandler
     @ResponseStatus(INTERNAL_SERVER_ERROR)
     public ErrorResponse handle(final Throwable e) {
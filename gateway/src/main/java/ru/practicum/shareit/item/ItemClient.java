@@ -1,36 +1,37 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.beans.factory.annotation.Value;
 import ru.practicum.shareit.item.dto.CommentDto;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.client.BaseClient;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ReactiveBaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuard;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.util.Map;
 
 @Service
-public class ItemClient extends BaseClient {
+public class ItemClient extends ReactiveBaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
     public ItemClient(@Value("${shareit-server.url}") String serverUrl,
-                      RestTemplateBuilder builder) {
-        super(builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                .build()
-        );
+                      WebClient.Builder builder,
+                      RequestCoalescer coalescer,
+                      ResponseCache cache,
+                      ServerCallGuard guard) {
+        super(serverUrl + API_PREFIX, builder, coalescer, cache, guard.forClient("items"));
     }
 
-    public ResponseEntity<Object> searchItems(String text,
-                                              Long userId,
-                                              Integer from,
-                                              Integer size) {
+    public Mono<ResponseEntity<Object>> searchItems(String text,
+                                                    Long userId,
+                                                    Integer from,
+                                                    Integer size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -39,21 +40,22 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> createComment(CommentDto commentDto,
-                                                Long itemId,
-                                                Long userId) {
+    public Mono<ResponseEntity<Object>> createComment(CommentDto commentDto,
+                                                      Long itemId,
+                                                      Long userId) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
 
-    public ResponseEntity<Object> updateItem(ItemDto itemDto,
-                                             Long itemId,
-                                             Long userId) {
-        return patch("/" + itemId, userId, itemDto);
+    public Mono<ResponseEntity<Object>> updateItem(ItemDto itemDto,
+                                                   Long itemId,
+                                                   Long userId,
+                                                   String ifMatch) {
+        return patch("/" + itemId, userId, null, itemDto, ifMatch);
     }
 
-    public ResponseEntity<Object> getItems(Long userId,
-                                           Integer from,
-                                           Integer size) {
+    public Mono<ResponseEntity<Object>> getItems(Long userId,
+                                                 Integer from,
+                                                 Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -61,17 +63,18 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> createItem(ItemDto itemDto,
-                                             Long userId) {
-        return post("", userId, itemDto);
+    public Mono<ResponseEntity<Object>> createItem(ItemDto itemDto,
+                                                   Long userId,
+                                                   String idempotencyKey) {
+        return post("", userId, null, itemDto, idempotencyKey);
     }
 
-    public ResponseEntity<Object> getItem(Long itemId,
-                                          Long userId) {
+    public Mono<ResponseEntity<Object>> getItem(Long itemId,
+                                                Long userId) {
         return get("/" + itemId, userId);
     }
 
-    public void deleteItem(Long itemId) {
-        delete("/" + itemId);
+    public Mono<Void> deleteItem(Long itemId) {
+        return delete("/" + itemId).then();
     }
 }
\ No newline at end of file
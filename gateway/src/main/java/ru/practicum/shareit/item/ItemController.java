@@ -8,7 +8,10 @@ import jakarta.validation.constraints.PositiveOrZero;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentDto;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ReactiveBaseClient;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.validation.Created;
 import lombok.AllArgsConstructor;
@@ -22,51 +25,53 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
-                                              @NotNull @RequestParam(required = false) String text) {
+    public Mono<ResponseEntity<Object>> searchItems(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                    @RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
+                                                    @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                    @NotNull @RequestParam(required = false) String text) {
         return itemClient.searchItems(text, userId, from, size);
     }
 
     @GetMapping()
-    public ResponseEntity<Object> getAllItems(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> getAllItems(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                    @RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
+                                                    @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         return itemClient.getItems(userId, from, size);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
-                                             @RequestBody ItemDto itemDto,
-                                             @PathVariable Long itemId) {
-        return itemClient.updateItem(itemDto, itemId, userId);
+    public Mono<ResponseEntity<Object>> updateItem(@RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
+                                                   @RequestBody ItemDto itemDto,
+                                                   @PathVariable Long itemId,
+                                                   @RequestHeader(required = false, value = HttpHeaders.IF_MATCH) String ifMatch) {
+        return itemClient.updateItem(itemDto, itemId, userId, ifMatch);
     }
 
     @PostMapping()
     @Validated(Created.class)
-    public ResponseEntity<Object> createItem(@RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
-                                             @RequestBody @Valid ItemDto itemDto) {
-        return itemClient.createItem(itemDto, userId);
+    public Mono<ResponseEntity<Object>> createItem(@RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
+                                                   @RequestBody @Valid ItemDto itemDto,
+                                                   @RequestHeader(required = false, value = ReactiveBaseClient.IDEMPOTENCY_KEY) String idempotencyKey) {
+        return itemClient.createItem(itemDto, userId, idempotencyKey);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItem(@RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
-                                          @PathVariable Long itemId) {
+    public Mono<ResponseEntity<Object>> getItem(@RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
+                                                @PathVariable Long itemId) {
         return itemClient.getItem(itemId, userId);
     }
 
     @Validated
     @PostMapping("{itemId}/comment")
-    public ResponseEntity<Object> createItemComment(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId,
-                                                    @RequestBody @Valid CommentDto commentDto,
-                                                    @PathVariable Long itemId) {
+    public Mono<ResponseEntity<Object>> createItemComment(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId,
+                                                          @RequestBody @Valid CommentDto commentDto,
+                                                          @PathVariable Long itemId) {
         if (userId == null) throw new IllegalArgumentException("Field userId is null");
         return itemClient.createComment(commentDto, itemId, userId);
     }
 
     @DeleteMapping("/{itemId}")
-    public void deleteItem(@PathVariable long itemId) {
-        itemClient.deleteItem(itemId);
+    public Mono<Void> deleteItem(@PathVariable long itemId) {
+        return itemClient.deleteItem(itemId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+
+/**
+ * Класс эндпоинта для лимитов: у поиска по тексту и у изменяющих запросов свои, более строгие лимиты.
+ */
+public enum EndpointClass {
+    READ,
+    SEARCH,
+    WRITE;
+
+    static EndpointClass of(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return WRITE;
+        }
+        return request.getRequestURI().startsWith("/items/search") ? SEARCH : READ;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Признаки перегрузки гейтвея: число запросов в обработке и сглаженное время ответа.
+ * Время ответа затухает без новых замеров, иначе после полного сброса нагрузки замеров бы не было
+ * и гейтвей отклонял бы запросы бесконечно.
+ */
+@Component
+public class LoadShedder {
+    static final String IN_FLIGHT = "in-flight";
+    static final String LATENCY = "latency";
+    private static final double SMOOTHING = 0.2;
+
+    private final LoadSheddingProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReference<Latency> latency = new AtomicReference<>(new Latency(0, System.nanoTime()));
+    private final Counter shedByInFlight;
+    private final Counter shedByLatency;
+
+    public LoadShedder(LoadSheddingProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.shedByInFlight = shed(registry, IN_FLIGHT);
+        this.shedByLatency = shed(registry, LATENCY);
+        Gauge.builder("gateway.load.in.flight", inFlight, AtomicInteger::get)
+                .description("Запросы в обработке гейтвеем")
+                .register(registry);
+        Gauge.builder("gateway.load.latency", this, shedder -> shedder.latencyMillis(System.nanoTime()))
+                .description("Сглаженное время ответа гейтвея")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    /**
+     * @return причина, по которой запрос надо отклонить, или null, если гейтвей не перегружен
+     */
+    @Nullable
+    String shouldShed(long now) {
+        if (!properties.enabled()) {
+            return null;
+        }
+        if (inFlight.get() >= properties.maxInFlight()) {
+            shedByInFlight.increment();
+            return IN_FLIGHT;
+        }
+        if (latencyMillis(now) > properties.maxLatency().toMillis()) {
+            shedByLatency.increment();
+            return LATENCY;
+        }
+        return null;
+    }
+
+    Duration retryAfter() {
+        return properties.retryAfter();
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished(long startNanos, long now) {
+        inFlight.decrementAndGet();
+        double sample = (now - startNanos) / 1_000_000.0;
+        latency.updateAndGet(current -> new Latency(
+                current.decayed(now, properties.latencyDecay()) * (1 - SMOOTHING) + sample * SMOOTHING, now));
+    }
+
+    double latencyMillis(long now) {
+        return latency.get().decayed(now, properties.latencyDecay());
+    }
+
+    private static Counter shed(MeterRegistry registry, String reason) {
+        return Counter.builder("gateway.load.shed")
+                .description("Запросы, отклонённые с 503 из-за перегрузки")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private record Latency(double millis, long measuredAt) {
+        double decayed(long now, Duration decay) {
+            long elapsed = Math.max(0, now - measuredAt);
+            return millis * Math.exp(-(double) elapsed / decay.toNanos());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Сброс нагрузки: новые запросы отклоняются с 503, пока гейтвей перегружен.
+ *
+ * @param enabled      включён ли сброс нагрузки
+ * @param maxInFlight  сколько запросов гейтвей обрабатывает одновременно
+ * @param maxLatency   допустимое сглаженное время ответа
+ * @param latencyDecay за сколько сглаженное время ответа затухает в e раз без новых замеров, чтобы гейтвей
+ *                     снова начал пропускать запросы после того, как всё отклонял
+ * @param retryAfter   значение Retry-After в ответе 503
+ */
+@ConfigurationProperties(prefix = "shareit-gateway.load-shedding")
+public record LoadSheddingProperties(@DefaultValue("true") boolean enabled,
+                                     @DefaultValue("2000") int maxInFlight,
+                                     @DefaultValue("2s") Duration maxLatency,
+                                     @DefaultValue("5s") Duration latencyDecay,
+                                     @DefaultValue("1s") Duration retryAfter) {
+}
@@ -0,0 +1,172 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.error.ErrorResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Ограничение запросов до контроллеров: при перегрузке гейтвея — 503, при превышении лимита пользователя
+ * на класс эндпоинтов — 429, оба с Retry-After. Запросы актуатора не ограничиваются.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties({RateLimitProperties.class, LoadSheddingProperties.class})
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String HEADER_SHARER_USER_ID = "X-Sharer-User-Id";
+
+    private final Cache<BucketKey, TokenBucket> buckets;
+    private final RateLimitProperties properties;
+    private final Map<EndpointClass, RateLimitProperties.Limit> limits;
+    private final LoadShedder loadShedder;
+    private final ObjectMapper objectMapper;
+    private final Map<EndpointClass, Counter> allowed = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+
+    public RateLimitFilter(RateLimitProperties properties, LoadShedder loadShedder, ObjectMapper objectMapper,
+                           MeterRegistry registry) {
+        this.properties = properties;
+        this.limits = properties.classes() != null ? properties.classes() : Map.of();
+        this.loadShedder = loadShedder;
+        this.objectMapper = objectMapper;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            allowed.put(endpointClass, requests(registry, endpointClass, "allowed"));
+            rejected.put(endpointClass, requests(registry, endpointClass, "rejected"));
+        }
+        // ведро, к которому не обращались дольше времени его заполнения, полное и ничем не отличается от нового
+        Duration idle = limits.values().stream()
+                .map(RateLimitProperties.Limit::fillTime)
+                .max(Duration::compareTo)
+                .orElse(Duration.ZERO);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxBuckets())
+                .expireAfterAccess(idle)
+                .build();
+        Gauge.builder("gateway.rate.limit.buckets", buckets, Cache::estimatedSize)
+                .description("Вёдра токенов клиентов в памяти")
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        if (loadShedder.shouldShed(start) != null) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, loadShedder.retryAfter(), "Сервис перегружен");
+            return;
+        }
+
+        EndpointClass endpointClass = EndpointClass.of(request);
+        long waitNanos = acquire(request, endpointClass, start);
+        if (waitNanos > 0) {
+            rejected.get(endpointClass).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Duration.ofNanos(waitNanos), "Слишком много запросов");
+            return;
+        }
+        allowed.get(endpointClass).increment();
+
+        if (isStream(request)) {
+            // поток событий открыт минутами: его длительность исказила бы время ответа, а число открытых
+            // потоков — число запросов в обработке
+            chain.doFilter(request, response);
+            return;
+        }
+        loadShedder.started();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new FinishListener(start));
+            } else {
+                loadShedder.finished(start, System.nanoTime());
+            }
+        }
+    }
+
+    private static boolean isStream(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/stream");
+    }
+
+    private long acquire(HttpServletRequest request, EndpointClass endpointClass, long now) {
+        RateLimitProperties.Limit limit = limits.get(endpointClass);
+        if (!properties.enabled() || limit == null) {
+            return 0;
+        }
+        String userId = request.getHeader(HEADER_SHARER_USER_ID);
+        String client = userId != null ? "user:" + userId : "ip:" + request.getRemoteAddr();
+        return buckets.get(new BucketKey(client, endpointClass), key -> new TokenBucket(limit, now))
+                .tryAcquire(now);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, Duration retryAfter, String message)
+            throws IOException {
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message));
+    }
+
+    private static Counter requests(MeterRegistry registry, EndpointClass endpointClass, String result) {
+        return Counter.builder("gateway.rate.limit.requests")
+                .description("Запросы, пропущенные и отклонённые с 429 лимитом пользователя")
+                .tag("class", endpointClass.name().toLowerCase())
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record BucketKey(String client, EndpointClass endpointClass) {
+    }
+
+    private final class FinishListener implements AsyncListener {
+        private final long start;
+
+        private FinishListener(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            loadShedder.finished(start, System.nanoTime());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
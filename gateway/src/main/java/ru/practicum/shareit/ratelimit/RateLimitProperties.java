@@ -0,0 +1,34 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Лимиты запросов на пользователя (X-Sharer-User-Id, без него — IP клиента) для каждого класса эндпоинтов.
+ *
+ * @param enabled    включено ли ограничение
+ * @param maxBuckets сколько вёдер держать в памяти; сверх этого вытесняются давно не использованные
+ * @param classes    лимиты по классам; класс без лимита не ограничивается
+ */
+@ConfigurationProperties(prefix = "shareit-gateway.rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("100000") int maxBuckets,
+                                  Map<EndpointClass, Limit> classes) {
+
+    /**
+     * @param capacity        сколько запросов подряд допускается сверх среднего темпа
+     * @param refillPerSecond средний допустимый темп
+     */
+    public record Limit(int capacity, double refillPerSecond) {
+
+        /**
+         * @return за сколько пустое ведро наполняется целиком
+         */
+        public Duration fillTime() {
+            return Duration.ofNanos((long) Math.ceil(capacity * 1_000_000_000L / refillPerSecond));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ведро токенов без блокировок в форме GCRA: вместо числа токенов хранится одно число — теоретическое время
+ * прихода следующего запроса (TAT). Каждый запрос сдвигает TAT на время пополнения одного токена; запрос
+ * отклоняется, если TAT ушло от текущего момента дальше, чем на ёмкость ведра. Обновление — один CAS.
+ * Время — в наносекундах System.nanoTime(), сравнивается только разностью.
+ */
+final class TokenBucket {
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(RateLimitProperties.Limit limit, long now) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / limit.refillPerSecond()));
+        this.capacityNanos = intervalNanos * limit.capacity();
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * @return 0, если токен взят, иначе через сколько наносекунд появится следующий токен
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > capacityNanos) {
+                return ahead - capacityNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -1,36 +1,38 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.beans.factory.annotation.Value;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.client.BaseClient;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ReactiveBaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuard;
 
 import java.util.Map;
 
 @Service
-public class ItemRequestClient extends BaseClient {
+public class ItemRequestClient extends ReactiveBaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                .build()
-        );
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder,
+                             RequestCoalescer coalescer,
+                             ResponseCache cache,
+                             ServerCallGuard guard) {
+        super(serverUrl + API_PREFIX, builder, coalescer, cache, guard.forClient("requests"));
     }
 
-    public ResponseEntity<Object> createItemRequest(ItemRequestDto itemRequestDto, Long userId) {
-        return post("", userId, itemRequestDto);
+    public Mono<ResponseEntity<Object>> createItemRequest(ItemRequestDto itemRequestDto, Long userId,
+                                                          String idempotencyKey) {
+        return post("", userId, null, itemRequestDto, idempotencyKey);
 
     }
 
-    public ResponseEntity<Object> getAllItemRequests(Integer from, Integer size, Long userId) {
+    public Mono<ResponseEntity<Object>> getAllItemRequests(Integer from, Integer size, Long userId) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -38,11 +40,11 @@ public class ItemRequestClient extends BaseClient {
         return get("/all/?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getItemRequest(Long requestId, Long userId) {
+    public Mono<ResponseEntity<Object>> getItemRequest(Long requestId, Long userId) {
         return get("/" + requestId, userId);
     }
 
-    public ResponseEntity<Object> getItemRequests(Long userId) {
+    public Mono<ResponseEntity<Object>> getItemRequests(Long userId) {
         return get("", userId);
     }
 }
\ No newline at end of file
@@ -6,6 +6,8 @@ import jakarta.validation.constraints.PositiveOrZero;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ReactiveBaseClient;
 import lombok.AllArgsConstructor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
@@ -19,27 +21,28 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllItemRequests(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                     @RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
-                                                     @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> getAllItemRequests(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                           @RequestHeader(required = false, value = HEADER_SHARER_USER_ID) Long userId,
+                                                           @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         return itemRequestClient.getAllItemRequests(from, size, userId);
     }
 
     @Validated
     @PostMapping()
-    public ResponseEntity<Object> createItemRequest(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId,
-                                                    @RequestBody @Valid ItemRequestDto itemRequestDto) {
-        return itemRequestClient.createItemRequest(itemRequestDto, userId);
+    public Mono<ResponseEntity<Object>> createItemRequest(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId,
+                                                          @RequestBody @Valid ItemRequestDto itemRequestDto,
+                                                          @RequestHeader(required = false, value = ReactiveBaseClient.IDEMPOTENCY_KEY) String idempotencyKey) {
+        return itemRequestClient.createItemRequest(itemRequestDto, userId, idempotencyKey);
     }
 
     @GetMapping()
-    public ResponseEntity<Object> getItemRequests(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId) {
+    public Mono<ResponseEntity<Object>> getItemRequests(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId) {
         return itemRequestClient.getItemRequests(userId);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getItemRequest(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId,
-                                                 @PathVariable Long requestId) {
+    public Mono<ResponseEntity<Object>> getItemRequest(@RequestHeader(value = HEADER_SHARER_USER_ID) Long userId,
+                                                       @PathVariable Long requestId) {
         return itemRequestClient.getItemRequest(requestId, userId);
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import ru.practicum.shareit.user.validation.Created;
 import ru.practicum.shareit.user.validation.Updated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.dto.UserDto;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,29 +22,29 @@ public class UserController {
 
     @Validated(Created.class)
     @PostMapping()
-    public ResponseEntity<Object> createUser(@RequestBody @Valid UserDto userDto) {
+    public Mono<ResponseEntity<Object>> createUser(@RequestBody @Valid UserDto userDto) {
         return userClient.createUser(userDto);
     }
 
     @Validated(Updated.class)
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(@RequestBody @Valid UserDto userDto,
-                                             @PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> updateUser(@RequestBody @Valid UserDto userDto,
+                                                   @PathVariable Long userId) {
         return userClient.updateUser(userDto, userId);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUser(@NotNull @PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> getUser(@NotNull @PathVariable Long userId) {
         return userClient.getUser(userId);
     }
 
     @DeleteMapping("/{userId}")
-    public void deleteUser(@PathVariable Long userId) {
-        userClient.deleteUser(userId);
+    public Mono<Void> deleteUser(@PathVariable Long userId) {
+        return userClient.deleteUser(userId);
     }
 
     @GetMapping()
-    public ResponseEntity<Object> getAllUsers() {
+    public Mono<ResponseEntity<Object>> getAllUsers() {
         return userClient.getUsers();
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Пропускная способность гейтвея с пулом соединений к серверу по умолчанию HttpClient 5 (5 соединений на маршрут,
+ * как было у каждого клиента с new HttpComponentsClientHttpRequestFactory()) и с общим настроенным пулом.
+ * Сервер — заглушка с задержкой LATENCY. Схлопывание одинаковых запросов выключено, bulkhead не меньше числа клиентов,
+ * а очередь к маленькому пулу не размыкает автомат защиты, чтобы мерить только пул.
+ * Запуск: mvn -P benchmark test -pl gateway
+ */
+@Tag("benchmark")
+class GatewayThroughputBenchmarkTest {
+    private static final int REQUESTS = 1000;
+    private static final int CONCURRENCY = 200;
+    private static final int DEFAULT_CONNECTIONS_PER_ROUTE = 5;
+    private static final int TUNED_CONNECTIONS_PER_ROUTE = 200;
+    private static final Duration LATENCY = Duration.ofMillis(200);
+
+    private ConfigurableApplicationContext server;
+    private String serverUrl;
+
+    @BeforeEach
+    void startServer() {
+        server = new SpringApplicationBuilder(ShareItGateway.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx)
+                        .registerBean("stubRoute", RouterFunction.class, GatewayThroughputBenchmarkTest::stubRoute))
+                .run("--server.port=0", "--logging.level.org.springframework=INFO",
+                        "--shareit-gateway.rate-limit.enabled=false", "--shareit-gateway.load-shedding.enabled=false");
+        serverUrl = "http://localhost:" + server.getEnvironment().getProperty("local.server.port") + "/stub";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void tunedSharedPoolRaisesThroughput() throws Exception {
+        double defaultPool = throughput(DEFAULT_CONNECTIONS_PER_ROUTE);
+        double tunedPool = throughput(TUNED_CONNECTIONS_PER_ROUTE);
+
+        System.out.printf("%d запросов по %d мс, %d одновременно: пул по умолчанию %.0f запр/с, настроенный пул %.0f запр/с%n",
+                REQUESTS, LATENCY.toMillis(), CONCURRENCY, defaultPool, tunedPool);
+        assertTrue(tunedPool > defaultPool * 3);
+    }
+
+    private double throughput(int connectionsPerRoute) throws Exception {
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ShareItGateway.class)
+                .run("--server.port=0", "--logging.level.org.springframework=INFO",
+                        "--shareit-gateway.rate-limit.enabled=false", "--shareit-gateway.load-shedding.enabled=false",
+                        "--shareit-server.url=" + serverUrl,
+                        "--shareit-server.client.max-connections-per-route=" + connectionsPerRoute,
+                        "--shareit-server.client.coalescing-enabled=false",
+                        "--resilience4j.bulkhead.configs.default.max-concurrent-calls=" + CONCURRENCY,
+                        "--resilience4j.circuitbreaker.configs.default.slow-call-duration-threshold=1m");
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:"
+                    + gateway.getEnvironment().getProperty("local.server.port") + "/users/1")).build();
+            assertEquals(200, client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+
+            long start = System.nanoTime();
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                clients.add(executor.submit(() -> {
+                    for (int j = 0; j < REQUESTS / CONCURRENCY; j++) {
+                        assertEquals(200, client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : clients) {
+                result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            MeterRegistry registry = gateway.getBean(MeterRegistry.class);
+            assertEquals(connectionsPerRoute, registry.get("httpcomponents.httpclient.pool.route.max.default")
+                    .tag("httpclient", "shareit-server")
+                    .gauge()
+                    .value());
+            return REQUESTS / seconds;
+        }
+    }
+
+    private static RouterFunction<ServerResponse> stubRoute() {
+        return RouterFunctions.route()
+                .GET("/stub/users/{id}", request -> {
+                    Thread.sleep(LATENCY);
+                    return ServerResponse.ok().body(Map.of("id", request.pathVariable("id"), "name", "user"));
+                })
+                .build();
+    }
+}
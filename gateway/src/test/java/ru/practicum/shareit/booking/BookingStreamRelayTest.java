@@ -0,0 +1,126 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+import ru.practicum.shareit.ShareItGateway;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Гейтвей перед заглушкой сервера, которая отправляет событие сразу, а следующее — через PAUSE.
+ */
+class BookingStreamRelayTest {
+    private static final Duration PAUSE = Duration.ofSeconds(2);
+
+    private ConfigurableApplicationContext server;
+    private ConfigurableApplicationContext gateway;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private String gatewayUrl;
+
+    @BeforeEach
+    void start() {
+        server = new SpringApplicationBuilder(ShareItGateway.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx)
+                        .registerBean("stubRoute", RouterFunction.class, BookingStreamRelayTest::stubRoute))
+                .run("--server.port=0", "--logging.level.org.springframework=INFO",
+                        "--shareit-gateway.rate-limit.enabled=false", "--shareit-gateway.load-shedding.enabled=false");
+        gateway = new SpringApplicationBuilder(ShareItGateway.class)
+                .run("--server.port=0", "--logging.level.org.springframework=INFO",
+                        "--shareit-server.url=http://localhost:" + port(server) + "/stub");
+        gatewayUrl = "http://localhost:" + port(gateway);
+    }
+
+    @AfterEach
+    void stop() {
+        gateway.close();
+        server.close();
+    }
+
+    @Test
+    void eventsAreRelayedAsTheyArrive() throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = client.send(request(1), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/event-stream"));
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            List<String> first = readEvent(reader);
+            Duration firstAfter = Duration.ofNanos(System.nanoTime() - start);
+            List<String> second = readEvent(reader);
+
+            assertTrue(firstAfter.compareTo(PAUSE) < 0, "первое событие через " + firstAfter);
+            assertTrue(first.contains("event:booking"), first.toString());
+            assertTrue(first.contains("data:{\"id\":1,\"status\":\"WAITING\"}"), first.toString());
+            assertTrue(second.contains("data:{\"id\":1,\"status\":\"APPROVED\"}"), second.toString());
+        }
+    }
+
+    @Test
+    void serverErrorIsPassedThrough() throws Exception {
+        HttpResponse<String> response = client.send(request(2), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpStatus.NOT_FOUND.value(), response.statusCode());
+        assertEquals("{\"error\":\"not found\"}", response.body());
+    }
+
+    private HttpRequest request(long userId) {
+        return HttpRequest.newBuilder(URI.create(gatewayUrl + "/bookings/stream"))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header("Accept", "text/event-stream")
+                .build();
+    }
+
+    private static List<String> readEvent(BufferedReader reader) throws Exception {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static String port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getProperty("local.server.port");
+    }
+
+    private static RouterFunction<ServerResponse> stubRoute() {
+        return RouterFunctions.route()
+                .GET("/stub/bookings/stream", request -> {
+                    if (!"1".equals(request.headers().firstHeader("X-Sharer-User-Id"))) {
+                        return ServerResponse.status(HttpStatus.NOT_FOUND).body(Map.of("error", "not found"));
+                    }
+                    return ServerResponse.sse(sse -> Thread.ofVirtual().start(() -> {
+                        try {
+                            sse.event("booking").data("{\"id\":1,\"status\":\"WAITING\"}");
+                            Thread.sleep(PAUSE);
+                            sse.event("booking").data("{\"id\":1,\"status\":\"APPROVED\"}");
+                            sse.complete();
+                        } catch (Exception e) {
+                            sse.error(e);
+                        }
+                    }));
+                })
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Flux;
+import ru.practicum.shareit.ShareItGateway;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Нагрузочный тест {@link ReactiveBaseClient} на заглушке сервера (Tomcat на виртуальных потоках), отвечающей
+ * с задержкой LATENCY. Блокирующему клиенту понадобился бы поток на каждый запрос в полёте, реактивный держит
+ * все REQUESTS запросов в полёте на нескольких потоках ввода-вывода, и время определяется пулом соединений.
+ * Запуск: mvn -P benchmark test -pl gateway
+ */
+@Tag("benchmark")
+class ReactiveBaseClientLoadTest {
+    private static final int REQUESTS = 4000;
+    private static final int CONNECTIONS = 400;
+    // во сколько раз быстрее последовательных запросов: на одном ядре заглушка и клиент делят процессор
+    private static final int MIN_SPEEDUP = 10;
+    private static final int MAX_EXTRA_THREADS = 20;
+    private static final Duration LATENCY = Duration.ofMillis(50);
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private ConfigurableApplicationContext server;
+    private String serverUrl;
+
+    @BeforeEach
+    void startServer() {
+        server = new SpringApplicationBuilder(ShareItGateway.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx)
+                        .registerBean("stubRoute", RouterFunction.class, ReactiveBaseClientLoadTest::stubRoute))
+                .run("--server.port=0", "--server.tomcat.accept-count=" + CONNECTIONS,
+                        "--logging.level.org.springframework=INFO",
+                        "--shareit-gateway.rate-limit.enabled=false", "--shareit-gateway.load-shedding.enabled=false");
+        serverUrl = "http://localhost:" + server.getEnvironment().getProperty("local.server.port") + "/stub/items";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void reactiveClientKeepsAllRequestsInFlightOnFewThreads() {
+        Result reactive = runReactive();
+
+        Duration sequential = LATENCY.multipliedBy(REQUESTS);
+        System.out.printf("%d запросов по %d мс через %d соединений: %d мс (последовательно %d мс), +%d потоков%n",
+                REQUESTS, LATENCY.toMillis(), CONNECTIONS, reactive.elapsed().toMillis(), sequential.toMillis(),
+                reactive.extraThreads());
+        assertTrue(reactive.elapsed().compareTo(sequential.dividedBy(MIN_SPEEDUP)) < 0);
+        assertTrue(reactive.extraThreads() < MAX_EXTRA_THREADS);
+    }
+
+    private Result runReactive() {
+        ServerClientConfig config = new ServerClientConfig();
+        ServerClientProperties properties = new ServerClientProperties(CONNECTIONS, CONNECTIONS,
+                Duration.ofSeconds(2), Duration.ofSeconds(30), Duration.ofSeconds(30), true, Duration.ofSeconds(2),
+                false, DataSize.ofMegabytes(64));
+        ReactiveBaseClient client = new ReactiveBaseClient(serverUrl, WebClient.builder()
+                .clientConnector(config.serverHttpConnector(config.serverConnectionManager(properties), properties)),
+                new RequestCoalescer(properties, new SimpleMeterRegistry()),
+                new ResponseCache(properties, new SimpleMeterRegistry()), UnaryOperator.identity());
+        assertEquals(200, client.get("/1").block().getStatusCode().value());
+
+        int baseline = resetPeakThreads();
+        long start = System.nanoTime();
+        Long succeeded = Flux.range(0, REQUESTS)
+                .flatMap(i -> client.get("/" + i), REQUESTS)
+                .filter(response -> response.getStatusCode().is2xxSuccessful())
+                .count()
+                .block();
+        assertEquals(REQUESTS, succeeded);
+        return new Result(Duration.ofNanos(System.nanoTime() - start), threads.getPeakThreadCount() - baseline);
+    }
+
+    private static RouterFunction<ServerResponse> stubRoute() {
+        return RouterFunctions.route()
+                .GET("/stub/items/{id}", request -> {
+                    Thread.sleep(LATENCY);
+                    return ServerResponse.ok().body(Map.of("id", request.pathVariable("id")));
+                })
+                .build();
+    }
+
+    private int resetPeakThreads() {
+        threads.resetPeakThreadCount();
+        return threads.getThreadCount();
+    }
+
+    private record Result(Duration elapsed, int extraThreads) {
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void concurrentIdenticalRequestsShareOneCall() {
+        RequestCoalescer coalescer = coalescer(true, Duration.ofSeconds(2));
+
+        List<ResponseEntity<Object>> responses = Flux.range(0, 10)
+                .flatMap(i -> coalescer.execute("/items/1 1", () -> slowCall(Duration.ofMillis(200))))
+                .collectList()
+                .block();
+
+        assertEquals(10, responses.size());
+        assertTrue(responses.stream().allMatch(response -> "1".equals(response.getBody())));
+        assertEquals(1, calls.get());
+        assertEquals(1, count("upstream"));
+        assertEquals(9, count("collapsed"));
+        assertEquals(0, registry.get("gateway.coalescing.in.flight").gauge().value());
+    }
+
+    @Test
+    void differentKeysAreNotCoalesced() {
+        RequestCoalescer coalescer = coalescer(true, Duration.ofSeconds(2));
+
+        Flux.just("/items/1 1", "/items/1 2", "/items/2 1")
+                .flatMap(key -> coalescer.execute(key, () -> slowCall(Duration.ofMillis(100))))
+                .blockLast();
+
+        assertEquals(3, calls.get());
+        assertEquals(0, count("collapsed"));
+    }
+
+    @Test
+    void requestAfterCompletionGoesUpstream() {
+        RequestCoalescer coalescer = coalescer(true, Duration.ofSeconds(2));
+
+        coalescer.execute("/items/1 1", () -> slowCall(Duration.ZERO)).block();
+        coalescer.execute("/items/1 1", () -> slowCall(Duration.ZERO)).block();
+
+        assertEquals(2, calls.get());
+        assertEquals(2, count("upstream"));
+    }
+
+    @Test
+    void waiterFallsBackToOwnCallAfterMaxWait() {
+        RequestCoalescer coalescer = coalescer(true, Duration.ofMillis(50));
+
+        Flux.range(0, 2)
+                .flatMap(i -> coalescer.execute("/items/1 1", () -> slowCall(Duration.ofMillis(300))))
+                .blockLast();
+
+        assertEquals(2, calls.get());
+        assertEquals(1, count("timeout"));
+        assertEquals(0, count("collapsed"));
+    }
+
+    @Test
+    void upstreamErrorIsSharedWithWaiters() {
+        RequestCoalescer coalescer = coalescer(true, Duration.ofSeconds(2));
+
+        List<String> errors = Flux.range(0, 3)
+                .flatMap(i -> coalescer.execute("/items/1 1", () -> Mono.delay(Duration.ofMillis(100))
+                                .then(Mono.<ResponseEntity<Object>>error(new IllegalStateException("down"))))
+                        .onErrorResume(e -> Mono.just(ResponseEntity.internalServerError().body(e.getMessage()))))
+                .map(response -> String.valueOf(response.getBody()))
+                .collectList()
+                .block();
+
+        assertEquals(List.of("down", "down", "down"), errors);
+        assertEquals(1, count("upstream"));
+    }
+
+    @Test
+    void disabledCoalescerCallsUpstreamEveryTime() {
+        RequestCoalescer coalescer = coalescer(false, Duration.ofSeconds(2));
+
+        Flux.range(0, 5)
+                .flatMap(i -> coalescer.execute("/items/1 1", () -> slowCall(Duration.ofMillis(100))))
+                .blockLast();
+
+        assertEquals(5, calls.get());
+    }
+
+    private RequestCoalescer coalescer(boolean enabled, Duration maxWait) {
+        return new RequestCoalescer(new ServerClientProperties(200, 200, Duration.ofSeconds(2),
+                Duration.ofSeconds(30), Duration.ofSeconds(30), enabled, maxWait, false, DataSize.ofMegabytes(64)),
+                registry);
+    }
+
+    private Mono<ResponseEntity<Object>> slowCall(Duration latency) {
+        return Mono.delay(latency)
+                .map(ignored -> ResponseEntity.ok((Object) String.valueOf(calls.incrementAndGet())));
+    }
+
+    private double count(String result) {
+        return registry.get("gateway.coalescing.requests").tag("result", result).counter().count();
+    }
+}
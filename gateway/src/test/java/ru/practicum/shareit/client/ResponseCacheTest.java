@@ -0,0 +1,116 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+    private static final String KEY = "/items/1 1";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> sentEtags = new ArrayList<>();
+
+    @Test
+    void notModifiedResponseIsServedFromCache() {
+        ResponseCache cache = cache(true);
+
+        cache.execute(KEY, etag -> respond(etag, ok("\"a\"", "item"))).block();
+        ResponseEntity<Object> response = cache.execute(KEY, etag -> respond(etag, notModified("\"a\""))).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("item", body(response));
+        assertEquals("\"a\"", response.getHeaders().getETag());
+        assertEquals(List.of("-", "\"a\""), sentEtags);
+        assertEquals(1, count("miss"));
+        assertEquals(1, count("not-modified"));
+    }
+
+    @Test
+    void changedResponseReplacesCached() {
+        ResponseCache cache = cache(true);
+
+        cache.execute(KEY, etag -> respond(etag, ok("\"a\"", "item"))).block();
+        ResponseEntity<Object> response = cache.execute(KEY, etag -> respond(etag, ok("\"b\"", "renamed"))).block();
+        cache.execute(KEY, etag -> respond(etag, notModified("\"b\""))).block();
+
+        assertEquals("renamed", body(response));
+        assertEquals(List.of("-", "\"a\"", "\"b\""), sentEtags);
+        assertEquals(1, count("modified"));
+    }
+
+    @Test
+    void responseWithoutEtagIsNotCached() {
+        ResponseCache cache = cache(true);
+
+        cache.execute(KEY, etag -> respond(etag, ok(null, "items"))).block();
+        cache.execute(KEY, etag -> respond(etag, ok(null, "items"))).block();
+
+        assertEquals(List.of("-", "-"), sentEtags);
+        assertEquals(0, registry.get("gateway.response.cache.size").gauge().value());
+    }
+
+    @Test
+    void errorResponseEvictsCached() {
+        ResponseCache cache = cache(true);
+
+        cache.execute(KEY, etag -> respond(etag, ok("\"a\"", "item"))).block();
+        cache.execute(KEY, etag -> respond(etag, ResponseEntity.status(HttpStatus.NOT_FOUND).build())).block();
+        cache.execute(KEY, etag -> respond(etag, ok("\"a\"", "item"))).block();
+
+        assertEquals(List.of("-", "\"a\"", "-"), sentEtags);
+    }
+
+    @Test
+    void disabledCacheNeverRevalidates() {
+        ResponseCache cache = cache(false);
+
+        cache.execute(KEY, etag -> respond(etag, ok("\"a\"", "item"))).block();
+        cache.execute(KEY, etag -> respond(etag, ok("\"a\"", "item"))).block();
+
+        assertEquals(List.of("-", "-"), sentEtags);
+    }
+
+    private ResponseCache cache(boolean enabled) {
+        return new ResponseCache(new ServerClientProperties(200, 200, Duration.ofSeconds(2), Duration.ofSeconds(30),
+                Duration.ofSeconds(30), false, Duration.ofSeconds(2), enabled, DataSize.ofMegabytes(1)), registry);
+    }
+
+    private Mono<ResponseEntity<Object>> respond(String etag, ResponseEntity<Object> response) {
+        return Mono.fromSupplier(() -> {
+            sentEtags.add(etag != null ? etag : "-");
+            return response;
+        });
+    }
+
+    private static ResponseEntity<Object> ok(String etag, String body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        return new ResponseEntity<>(body.getBytes(StandardCharsets.UTF_8), headers, HttpStatus.OK);
+    }
+
+    private static ResponseEntity<Object> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    private static String body(ResponseEntity<Object> response) {
+        return new String((byte[]) response.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private double count(String result) {
+        return registry.get("gateway.response.cache.requests").tag("result", result).counter().count();
+    }
+}
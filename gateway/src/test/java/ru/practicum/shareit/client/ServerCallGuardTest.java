@@ -0,0 +1,169 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+import ru.practicum.shareit.ShareItGateway;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Гейтвей перед заглушкой сервера, у которой бронирования отвечают с задержкой SLOW_LATENCY,
+ * а вещи — ошибкой 500.
+ */
+class ServerCallGuardTest {
+    private static final Duration SLOW_LATENCY = Duration.ofSeconds(1);
+    private static final int BOOKINGS_BULKHEAD = 5;
+    private static final int BOOKING_REQUESTS = 20;
+
+    private ConfigurableApplicationContext server;
+    private ConfigurableApplicationContext gateway;
+    private HttpClient client;
+    private ExecutorService executor;
+    private MeterRegistry registry;
+    private String gatewayUrl;
+
+    @BeforeEach
+    void start() {
+        server = new SpringApplicationBuilder(ShareItGateway.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx)
+                        .registerBean("stubRoute", RouterFunction.class, ServerCallGuardTest::stubRoute))
+                .run("--server.port=0", "--logging.level.org.springframework=INFO",
+                        "--shareit-gateway.rate-limit.enabled=false", "--shareit-gateway.load-shedding.enabled=false");
+        gateway = new SpringApplicationBuilder(ShareItGateway.class)
+                .run("--server.port=0", "--logging.level.org.springframework=INFO",
+                        "--shareit-gateway.rate-limit.enabled=false", "--shareit-gateway.load-shedding.enabled=false",
+                        "--shareit-server.url=http://localhost:" + port(server) + "/stub",
+                        "--resilience4j.bulkhead.instances.bookings.max-concurrent-calls=" + BOOKINGS_BULKHEAD,
+                        "--resilience4j.circuitbreaker.configs.default.sliding-window-size=5",
+                        "--resilience4j.circuitbreaker.configs.default.minimum-number-of-calls=5",
+                        "--resilience4j.circuitbreaker.configs.default.slow-call-duration-threshold=500ms",
+                        "--resilience4j.circuitbreaker.configs.default.slow-call-rate-threshold=100",
+                        "--resilience4j.circuitbreaker.configs.default.wait-duration-in-open-state=1m");
+        gatewayUrl = "http://localhost:" + port(gateway);
+        registry = gateway.getBean(MeterRegistry.class);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .build();
+    }
+
+    @AfterEach
+    void stop() {
+        executor.close();
+        gateway.close();
+        server.close();
+    }
+
+    @Test
+    void slowBookingsDoNotStarveUsers() throws Exception {
+        List<Future<Integer>> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKING_REQUESTS; i++) {
+            String path = "/bookings/" + i;
+            bookings.add(executor.submit(() -> status(path)));
+        }
+        while (availableBookingCalls() > 0) {
+            Thread.sleep(10);
+        }
+
+        long start = System.nanoTime();
+        assertEquals(HttpStatus.OK.value(), status("/users/1"));
+        Duration usersLatency = Duration.ofNanos(System.nanoTime() - start);
+        assertTrue(usersLatency.compareTo(SLOW_LATENCY.dividedBy(2)) < 0, "GET /users/1: " + usersLatency);
+
+        int succeeded = 0;
+        int rejected = 0;
+        for (Future<Integer> booking : bookings) {
+            int status = booking.get();
+            if (status == HttpStatus.OK.value()) {
+                succeeded++;
+            } else if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                rejected++;
+            }
+        }
+        assertEquals(BOOKINGS_BULKHEAD, succeeded);
+        assertEquals(BOOKING_REQUESTS - BOOKINGS_BULKHEAD, rejected);
+        assertEquals(rejected, registry.get("gateway.bulkhead.rejected").tag("name", "bookings").counter().count());
+
+        // все ответы в окне автомата медленные: он разомкнут и отклоняет запросы, не дожидаясь сервера
+        assertEquals(1, breakerState("bookings", "open"));
+        assertEquals(1, breakerState("users", "closed"));
+        start = System.nanoTime();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), status("/bookings/100"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(SLOW_LATENCY.dividedBy(2)) < 0);
+        assertEquals(1, registry.get("resilience4j.circuitbreaker.not.permitted.calls")
+                .tag("name", "bookings")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void serverErrorsOpenBreaker() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), status("/items/" + i));
+        }
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), status("/items/100"));
+        assertEquals(1, breakerState("items", "open"));
+        assertEquals(HttpStatus.OK.value(), status("/users/1"));
+    }
+
+    private int status(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(gatewayUrl + path))
+                .header("X-Sharer-User-Id", "1")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private double availableBookingCalls() {
+        return registry.get("resilience4j.bulkhead.available.concurrent.calls")
+                .tag("name", "bookings")
+                .gauge()
+                .value();
+    }
+
+    private double breakerState(String name, String state) {
+        return registry.get("resilience4j.circuitbreaker.state")
+                .tag("name", name)
+                .tag("state", state)
+                .gauge()
+                .value();
+    }
+
+    private static String port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getProperty("local.server.port");
+    }
+
+    private static RouterFunction<ServerResponse> stubRoute() {
+        return RouterFunctions.route()
+                .GET("/stub/bookings/{id}", request -> {
+                    Thread.sleep(SLOW_LATENCY);
+                    return ServerResponse.ok().body(Map.of("id", request.pathVariable("id")));
+                })
+                .GET("/stub/users/{id}", request -> ServerResponse.ok().body(Map.of("id", request.pathVariable("id"))))
+                .GET("/stub/items/{id}", request -> ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "down")))
+                .build();
+    }
+}
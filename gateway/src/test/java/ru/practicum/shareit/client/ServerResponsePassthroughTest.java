@@ -0,0 +1,88 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+import ru.practicum.shareit.ShareItGateway;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Гейтвей перед заглушкой сервера: пользователь 1 — обычный ответ, пользователь 2 — ответ больше
+ * spring.codec.max-in-memory-size.
+ */
+class ServerResponsePassthroughTest {
+    private static final String SMALL = "{\"id\":1,\"name\":\"user\"}";
+    private static final String LARGE = "{\"name\":\"" + "x".repeat(2 * 1024 * 1024) + "\"}";
+
+    private ConfigurableApplicationContext server;
+    private ConfigurableApplicationContext gateway;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private String gatewayUrl;
+
+    @BeforeEach
+    void start() {
+        server = new SpringApplicationBuilder(ShareItGateway.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx)
+                        .registerBean("stubRoute", RouterFunction.class, ServerResponsePassthroughTest::stubRoute))
+                .run("--server.port=0", "--logging.level.org.springframework=INFO",
+                        "--shareit-gateway.rate-limit.enabled=false", "--shareit-gateway.load-shedding.enabled=false");
+        gateway = new SpringApplicationBuilder(ShareItGateway.class)
+                .run("--server.port=0", "--logging.level.org.springframework=INFO",
+                        "--shareit-server.client.response-cache-enabled=false",
+                        "--shareit-server.url=http://localhost:" + port(server) + "/stub");
+        gatewayUrl = "http://localhost:" + port(gateway);
+    }
+
+    @AfterEach
+    void stop() {
+        gateway.close();
+        server.close();
+    }
+
+    @Test
+    void bodyIsPassedThroughAsIs() throws Exception {
+        HttpResponse<String> response = client.send(request(1), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals(SMALL, response.body());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.headers().firstValue("Content-Type").orElseThrow());
+    }
+
+    @Test
+    void oversizedBodyIsRejectedWithBadGateway() throws Exception {
+        HttpResponse<String> response = client.send(request(2), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpStatus.BAD_GATEWAY.value(), response.statusCode());
+        assertTrue(response.body().contains("слишком большой"), response.body());
+    }
+
+    private HttpRequest request(long userId) {
+        return HttpRequest.newBuilder(URI.create(gatewayUrl + "/users/" + userId)).build();
+    }
+
+    private static String port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getProperty("local.server.port");
+    }
+
+    private static RouterFunction<ServerResponse> stubRoute() {
+        return RouterFunctions.route()
+                .GET("/stub/users/{id}", request -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("1".equals(request.pathVariable("id")) ? SMALL : LARGE))
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.dashboard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.request.ItemRequestClient;
+import ru.practicum.shareit.user.UserClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+    private static final long USER_ID = 1L;
+    private static final Duration LATENCY = Duration.ofMillis(300);
+    private static final Duration SECTION_TIMEOUT = Duration.ofSeconds(1);
+
+    @Mock
+    private UserClient userClient;
+
+    @Mock
+    private ItemClient itemClient;
+
+    @Mock
+    private BookingClient bookingClient;
+
+    @Mock
+    private ItemRequestClient itemRequestClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private DashboardService dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        dashboardService = new DashboardService(userClient, itemClient, bookingClient, itemRequestClient,
+                new DashboardProperties(SECTION_TIMEOUT, 10), objectMapper, registry);
+        when(userClient.getUser(USER_ID)).thenReturn(respond(HttpStatus.OK, "{\"id\":1}", LATENCY));
+        when(itemClient.getItems(USER_ID, 0, 10)).thenReturn(respond(HttpStatus.OK, "[{\"id\":2}]", LATENCY));
+        when(bookingClient.getOwnerBookings(USER_ID, BookingState.ALL, 0, 10, null))
+                .thenReturn(respond(HttpStatus.OK, "[]", LATENCY));
+        when(itemRequestClient.getItemRequests(USER_ID)).thenReturn(respond(HttpStatus.OK, "[]", LATENCY));
+    }
+
+    @Test
+    void getDashboard_ShouldFetchSectionsConcurrently() throws Exception {
+        when(bookingClient.getBookings(USER_ID, BookingState.ALL, 0, 10, null))
+                .thenReturn(respond(HttpStatus.OK, "[{\"id\":3}]", LATENCY));
+        // первый вызов прогревает классы Reactor и Jackson
+        dashboardService.getDashboard(USER_ID).block();
+
+        long start = System.nanoTime();
+        JsonNode dashboard = body(dashboardService.getDashboard(USER_ID).block());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(elapsed.compareTo(LATENCY.multipliedBy(2)) < 0, "пять разделов по 300 мс: " + elapsed);
+        assertEquals(1, dashboard.get("user").get("id").asInt());
+        assertEquals(2, dashboard.get("items").get(0).get("id").asInt());
+        assertEquals(3, dashboard.get("bookings").get(0).get("id").asInt());
+        assertTrue(dashboard.get("ownerBookings").isArray());
+        assertTrue(dashboard.get("requests").isArray());
+        assertTrue(dashboard.get("errors").isEmpty());
+    }
+
+    @Test
+    void getDashboard_ShouldReturnPartialResultWhenSectionTimesOut() throws Exception {
+        when(bookingClient.getBookings(USER_ID, BookingState.ALL, 0, 10, null))
+                .thenReturn(respond(HttpStatus.OK, "[]", SECTION_TIMEOUT.multipliedBy(5)));
+
+        long start = System.nanoTime();
+        ResponseEntity<Object> response = dashboardService.getDashboard(USER_ID).block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(elapsed.compareTo(SECTION_TIMEOUT.multipliedBy(2)) < 0, "ответ через " + elapsed);
+        JsonNode dashboard = body(response);
+        assertTrue(dashboard.get("bookings").isNull());
+        assertTrue(dashboard.get("errors").has("bookings"));
+        assertEquals(1, dashboard.get("user").get("id").asInt());
+        assertEquals(1, registry.get("gateway.dashboard.sections")
+                .tag("section", "bookings")
+                .tag("result", "timeout")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void getDashboard_ShouldReturnServerErrorOfFailedSection() throws Exception {
+        when(bookingClient.getBookings(USER_ID, BookingState.ALL, 0, 10, null))
+                .thenReturn(respond(HttpStatus.INTERNAL_SERVER_ERROR, "{\"error\":\"down\"}", Duration.ZERO));
+        when(itemRequestClient.getItemRequests(USER_ID))
+                .thenReturn(Mono.error(new IllegalStateException("connection refused")));
+
+        JsonNode dashboard = body(dashboardService.getDashboard(USER_ID).block());
+
+        assertTrue(dashboard.get("bookings").isNull());
+        assertEquals("down", dashboard.get("errors").get("bookings").get("error").asText());
+        assertTrue(dashboard.get("requests").isNull());
+        assertEquals("connection refused", dashboard.get("errors").get("requests").get("error").asText());
+        assertEquals(2, dashboard.get("items").get(0).get("id").asInt());
+    }
+
+    @Test
+    void getDashboard_ShouldPassThroughUserNotFound() {
+        when(userClient.getUser(USER_ID))
+                .thenReturn(respond(HttpStatus.NOT_FOUND, "{\"error\":\"not found\"}", Duration.ZERO));
+        when(bookingClient.getBookings(USER_ID, BookingState.ALL, 0, 10, null))
+                .thenReturn(respond(HttpStatus.NOT_FOUND, "{\"error\":\"not found\"}", Duration.ZERO));
+
+        ResponseEntity<Object> response = dashboardService.getDashboard(USER_ID).block();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("{\"error\":\"not found\"}", new String((byte[]) response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private JsonNode body(ResponseEntity<Object> response) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsString(response.getBody()));
+    }
+
+    private static Mono<ResponseEntity<Object>> respond(HttpStatus status, String body, Duration latency) {
+        return Mono.delay(latency)
+                .map(ignored -> new ResponseEntity<>(body.getBytes(StandardCharsets.UTF_8), status));
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectsUserOverLimitWith429AndRetryAfter() throws Exception {
+        RateLimitFilter filter = filter(true, sheddingDisabled());
+
+        assertEquals(200, perform(filter, "GET", "/items/1", "1").getStatus());
+        assertEquals(200, perform(filter, "GET", "/items/1", "1").getStatus());
+        MockHttpServletResponse rejected = perform(filter, "GET", "/items/1", "1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("100", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("error"));
+        assertEquals(1, registry.get("gateway.rate.limit.requests")
+                .tags("class", "read", "result", "rejected").counter().count());
+    }
+
+    @Test
+    void limitsAreSeparatePerUserAndEndpointClass() throws Exception {
+        RateLimitFilter filter = filter(true, sheddingDisabled());
+        perform(filter, "GET", "/items/1", "1");
+        perform(filter, "GET", "/items/1", "1");
+
+        assertEquals(200, perform(filter, "GET", "/items/1", "2").getStatus());
+        assertEquals(200, perform(filter, "POST", "/items", "1").getStatus());
+        assertEquals(200, perform(filter, "GET", "/items/search", "1").getStatus());
+        assertEquals(429, perform(filter, "GET", "/items/search", "1").getStatus());
+    }
+
+    @Test
+    void requestsWithoutUserAreLimitedByAddress() throws Exception {
+        RateLimitFilter filter = filter(true, sheddingDisabled());
+        perform(filter, "GET", "/users", null);
+        perform(filter, "GET", "/users", null);
+
+        assertEquals(429, perform(filter, "GET", "/users", null).getStatus());
+    }
+
+    @Test
+    void disabledLimitPassesEverything() throws Exception {
+        RateLimitFilter filter = filter(false, sheddingDisabled());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, perform(filter, "GET", "/items/1", "1").getStatus());
+        }
+    }
+
+    @Test
+    void shedsLoadWith503WhenLatencyIsTooHigh() throws Exception {
+        LoadShedder shedder = new LoadShedder(new LoadSheddingProperties(true, 100, Duration.ofMillis(100),
+                Duration.ofSeconds(5), Duration.ofSeconds(2)), registry);
+        long now = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            shedder.started();
+            shedder.finished(now - Duration.ofSeconds(1).toNanos(), now);
+        }
+        RateLimitFilter filter = filter(false, shedder);
+
+        MockHttpServletResponse response = perform(filter, "GET", "/items/1", "1");
+
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals(1, registry.get("gateway.load.shed").tag("reason", "latency").counter().count());
+    }
+
+    @Test
+    void latencyDecaysWithoutNewSamples() {
+        LoadShedder shedder = new LoadShedder(new LoadSheddingProperties(true, 100, Duration.ofMillis(100),
+                Duration.ofSeconds(1), Duration.ofSeconds(1)), registry);
+        long now = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            shedder.started();
+            shedder.finished(now - Duration.ofSeconds(1).toNanos(), now);
+        }
+
+        assertEquals(LoadShedder.LATENCY, shedder.shouldShed(now));
+        assertNull(shedder.shouldShed(now + Duration.ofSeconds(5).toNanos()));
+    }
+
+    @Test
+    void shedsLoadWhenTooManyRequestsInFlight() {
+        LoadShedder shedder = new LoadShedder(new LoadSheddingProperties(true, 2, Duration.ofSeconds(2),
+                Duration.ofSeconds(5), Duration.ofSeconds(1)), registry);
+        shedder.started();
+        assertNull(shedder.shouldShed(System.nanoTime()));
+        shedder.started();
+
+        assertEquals(LoadShedder.IN_FLIGHT, shedder.shouldShed(System.nanoTime()));
+        assertEquals(2, registry.get("gateway.load.in.flight").gauge().value());
+    }
+
+    private RateLimitFilter filter(boolean enabled, LoadShedder shedder) {
+        Map<EndpointClass, RateLimitProperties.Limit> limits = Map.of(
+                EndpointClass.READ, new RateLimitProperties.Limit(2, 0.01),
+                EndpointClass.SEARCH, new RateLimitProperties.Limit(1, 0.01),
+                EndpointClass.WRITE, new RateLimitProperties.Limit(2, 0.01));
+        return new RateLimitFilter(new RateLimitProperties(enabled, 1000, limits), shedder, new ObjectMapper(),
+                registry);
+    }
+
+    private LoadShedder sheddingDisabled() {
+        return new LoadShedder(new LoadSheddingProperties(false, 1, Duration.ZERO, Duration.ofSeconds(5),
+                Duration.ofSeconds(1)), registry);
+    }
+
+    private MockHttpServletResponse perform(RateLimitFilter filter, String method, String uri, String userId)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+    private static final long SECOND = 1_000_000_000L;
+    private final RateLimitProperties.Limit limit = new RateLimitProperties.Limit(5, 10);
+
+    @Test
+    void allowsBurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(limit, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(0));
+        }
+        assertEquals(SECOND / 10, bucket.tryAcquire(0));
+    }
+
+    @Test
+    void refillsAtConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(limit, 0);
+        IntStream.range(0, 5).forEach(i -> bucket.tryAcquire(0));
+
+        assertTrue(bucket.tryAcquire(SECOND / 20) > 0);
+        assertEquals(0, bucket.tryAcquire(SECOND / 10));
+        assertTrue(bucket.tryAcquire(SECOND / 10) > 0);
+    }
+
+    @Test
+    void isLikeNewAfterFillTime() {
+        TokenBucket bucket = new TokenBucket(limit, 0);
+        IntStream.range(0, 5).forEach(i -> bucket.tryAcquire(0));
+        long filled = limit.fillTime().toNanos();
+
+        assertEquals(SECOND / 2, filled);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(filled));
+        }
+        assertTrue(bucket.tryAcquire(filled) > 0);
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedCapacity() {
+        TokenBucket bucket = new TokenBucket(new RateLimitProperties.Limit(100, 0.001), 0);
+        AtomicInteger acquired = new AtomicInteger();
+
+        IntStream.range(0, 10_000).parallel().forEach(i -> {
+            if (bucket.tryAcquire(0) == 0) {
+                acquired.incrementAndGet();
+            }
+        });
+
+        assertEquals(100, acquired.get());
+    }
+}
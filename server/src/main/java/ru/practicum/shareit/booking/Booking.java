@@ -6,6 +6,7 @@ import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.booking.enums.BookingPhase;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.user.User;
@@ -38,4 +39,20 @@ public class Booking {
     User booker;
     @Enumerated(EnumType.STRING)
     BookingStatus status;
+
+    // меняется только BookingPhaseUpdater'ом, поэтому не перезаписывается при сохранении сущности
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    BookingPhase phase;
+
+    @Version
+    @Column(nullable = false)
+    Long version;
+
+    @PrePersist
+    void initPhase() {
+        if (phase == null) {
+            phase = BookingPhase.of(start, end, LocalDateTime.now());
+        }
+    }
 }
\ No newline at end of file
@@ -3,13 +3,18 @@ package ru.practicum.shareit.booking;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingConfirmationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.web.IfMatch;
 
 import java.util.List;
 
@@ -21,6 +26,8 @@ import java.util.List;
 @Slf4j
 public class BookingController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
 
     @PostMapping
@@ -32,43 +39,90 @@ public class BookingController {
         return result;
     }
 
+    @PostMapping("/batch")
+    public List<BookingObjectsDto> createBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @RequestBody List<@Valid BookingDto> bookingDtos) {
+        log.info("Пакетное создание {} бронирований для пользователя с ID: {}", bookingDtos.size(), userId);
+        List<BookingObjectsDto> result = bookingService.createBookings(userId, bookingDtos);
+        log.info("Бронирования успешно созданы, количество: {}", result.size());
+        return result;
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingObjectsDto confirmation(@RequestHeader("X-Sharer-User-Id") long userId,
                                           @RequestParam("approved") boolean approved,
-                                          @PathVariable("bookingId") Long bookingId) {
+                                          @PathVariable("bookingId") Long bookingId,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Подтверждение бронирования с ID: {}, пользователь с ID: {}, одобрено: {}", bookingId, userId, approved);
-        BookingObjectsDto result = bookingService.confirmation(userId, approved, bookingId);
+        BookingObjectsDto result = bookingService.confirmation(userId, approved, bookingId, IfMatch.version(ifMatch));
         log.info("Результат подтверждения бронирования: {}", result);
         return result;
     }
 
+    @PatchMapping("/approve")
+    public List<BookingConfirmationDto> confirmAll(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                   @RequestParam("approved") boolean approved,
+                                                   @RequestBody List<Long> bookingIds) {
+        log.info("Пакетное подтверждение бронирований {}, пользователь с ID: {}, одобрено: {}", bookingIds, userId, approved);
+        List<BookingConfirmationDto> result = bookingService.confirmAll(userId, approved, bookingIds);
+        log.info("Результат пакетного подтверждения бронирований: {}", result);
+        return result;
+    }
+
     @GetMapping("/{bookingId}")
-    public BookingObjectsDto getOnlyOwnerOrBooker(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                  @PathVariable("bookingId") Long bookingId) {
+    public ResponseEntity<BookingObjectsDto> getOnlyOwnerOrBooker(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                  @PathVariable("bookingId") Long bookingId) {
         log.info("Получение информации о бронировании с ID: {}, пользователь с ID: {}", bookingId, userId);
         BookingObjectsDto result = bookingService.getOnlyOwnerOrBooker(userId, bookingId);
         log.info("Информация о бронировании получена: {}", result);
-        return result;
+        return ResponseEntity.ok().eTag(etag(result)).body(result);
     }
 
     @GetMapping
-    public List<BookingObjectsDto> getListOfUserBooker(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                       @RequestParam(name = "state", required = false, defaultValue = "ALL")
-                                                       BookingState state) {
-        log.info("Получение списка бронирований для пользователя с ID: {}, состояние: {}", userId, state);
-        List<BookingObjectsDto> result = bookingService.getListOfUserBooker(userId, state);
-        log.info("Список бронирований получен, количество: {}", result.size());
-        return result;
+    public ResponseEntity<List<BookingObjectsDto>> getListOfUserBooker(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(name = "state", required = false, defaultValue = "ALL") BookingState state,
+            @RequestParam(name = "from", defaultValue = "0") Integer from,
+            @RequestParam(name = "size", defaultValue = "10") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        log.info("Получение списка бронирований для пользователя с ID: {}, состояние: {}, from: {}, size: {}, cursor: {}",
+                userId, state, from, size, cursor);
+        BookingPageDto result = bookingService.getListOfUserBooker(userId, state, from, size, cursor);
+        log.info("Список бронирований получен, количество: {}", result.getBookings().size());
+        return toResponse(result);
     }
 
     @GetMapping("/owner")
-    public List<BookingObjectsDto> getListBookerOfOwnerItems(
+    public ResponseEntity<List<BookingObjectsDto>> getListBookerOfOwnerItems(
             @RequestHeader("X-Sharer-User-Id") long userId,
-            @RequestParam(name = "state", required = false, defaultValue = "ALL")
-            BookingState state) {
-        log.info("Получение списка бронирований для владельца с ID: {}, состояние: {}", userId, state);
-        List<BookingObjectsDto> result = bookingService.getListBookerOfOwnerItems(userId, state);
-        log.info("Список бронирований владельца получен, количество: {}", result.size());
-        return result;
+            @RequestParam(name = "state", required = false, defaultValue = "ALL") BookingState state,
+            @RequestParam(name = "from", defaultValue = "0") Integer from,
+            @RequestParam(name = "size", defaultValue = "10") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        log.info("Получение списка бронирований для владельца с ID: {}, состояние: {}, from: {}, size: {}, cursor: {}",
+                userId, state, from, size, cursor);
+        BookingPageDto result = bookingService.getListBookerOfOwnerItems(userId, state, from, size, cursor);
+        log.info("Список бронирований владельца получен, количество: {}", result.getBookings().size());
+        return toResponse(result);
+    }
+
+    private static ResponseEntity<List<BookingObjectsDto>> toResponse(BookingPageDto page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getBookings());
+    }
+
+    /**
+     * Сильный ETag: кроме версии бронирования в ответ входят вещь (её версия) и бронирующий, у которого версии нет,
+     * поэтому его имя и почта входят хэшем.
+     */
+    private static String etag(BookingObjectsDto booking) {
+        Long itemVersion = booking.getItem() != null ? booking.getItem().getVersion() : null;
+        String booker = booking.getBooker() != null
+                ? IfMatch.digest(List.of(booking.getBooker().getName(), booking.getBooker().getEmail()))
+                : "";
+        return IfMatch.strongEtag(booking.getVersion(), itemVersion != null ? itemVersion : 0, booker);
     }
-}
\ No newline at end of file
+}
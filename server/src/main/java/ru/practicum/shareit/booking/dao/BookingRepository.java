@@ -1,15 +1,18 @@
 package ru.practicum.shareit.booking.dao;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
 
     @Query("SELECT b " +
             "FROM Booking b " +
@@ -27,17 +30,41 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "AND b.id = ?2")
     Optional<Booking> getByOwnerIdOrBookerId(Long userId, Long bookingId);
 
-    List<Booking> findByItemOwnerIdAndStatusOrderByStartDesc(Long userId, BookingStatus status);
-
-    List<Booking> findByBookerIdAndStatusOrderByStartDesc(Long userId, BookingStatus status);
+    @Query("SELECT b " +
+            "FROM Booking b " +
+            "JOIN FETCH b.item i " +
+            "JOIN FETCH b.booker " +
+            "WHERE i.owner.id = ?1 " +
+            "AND b.id IN ?2")
+    List<Booking> findAllByItemOwnerIdAndIdIn(Long ownerId, Collection<Long> bookingIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b " +
+            "SET b.status = ?1, b.version = b.version + 1 " +
+            "WHERE b.id IN ?2 AND b.version = ?3")
+    int updateStatus(BookingStatus status, Collection<Long> bookingIds, Long version);
+
+    /**
+     * Переводит в PAST бронирования, закончившиеся раньше now; выбирает их по индексу (phase, end).
+     */
+    @Modifying
+    @Query("UPDATE Booking b " +
+            "SET b.phase = 'PAST' " +
+            "WHERE b.phase IN ('FUTURE', 'CURRENT') AND b.end < ?1")
+    int markPast(LocalDateTime now);
+
+    /**
+     * Переводит в CURRENT бронирования, начавшиеся раньше now; выбирает их по индексу (phase, start).
+     */
+    @Modifying
+    @Query("UPDATE Booking b " +
+            "SET b.phase = 'CURRENT' " +
+            "WHERE b.phase = 'FUTURE' AND b.start < ?1")
+    int markCurrent(LocalDateTime now);
 
     List<Booking> findByBookerIdAndItemIdAndStatusAndStartIsBefore(
             Long userId, long itemId, BookingStatus status, LocalDateTime now);
 
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long user);
-
-    List<Booking> findByItemOwnerIdOrderByStartDesc(Long user);
-
     List<Booking> findByItemId(Long itemId);
 
     @Query("SELECT b " +
@@ -49,21 +76,28 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "OR b.start <= ?2 AND b.end >= ?3)")
     List<Booking> isAvailbleTime(long itemId, LocalDateTime start, LocalDateTime end);
 
-    List<Booking> findByItemIdAndStatusOrStatusOrderByStartAsc(Long id, BookingStatus status1, BookingStatus status2);
+    List<Booking> findByItemIdAndStatusOrderByStartAsc(Long itemId, BookingStatus status);
 
-    List<Booking> findByBookerIdAndEndIsBeforeOrderByStartDesc(Long id, LocalDateTime time);
-
-    List<Booking> findByBookerIdAndStartIsAfterOrderByStartDesc(Long id, LocalDateTime time);
-
-    List<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(Long bookerId, LocalDateTime start, LocalDateTime end);
+    @Query("SELECT b.item.id " +
+            "FROM Booking b " +
+            "WHERE b.status = ?1 " +
+            "GROUP BY b.item.id " +
+            "ORDER BY MAX(b.start) DESC")
+    List<Long> findRecentlyBookedItemIds(BookingStatus status, Limit limit);
 
     List<Booking> findByBookerIdAndStatus(Long id, BookingStatus status);
 
-    List<Booking> findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(Long itemOwnerId, LocalDateTime start, LocalDateTime end);
-
-    List<Booking> findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(Long userId, LocalDateTime time);
-
-    List<Booking> findByItemOwnerIdAndStartIsAfterOrderByStartDesc(Long userId, LocalDateTime time);
-
-    List<Booking> findByItemIdInAndStatusOrStatusOrderByStartAsc(List<Long> itemIds, BookingStatus approved, BookingStatus waiting);
+    /**
+     * Для каждой вещи возвращает только последнее начавшееся (start <= now) и ближайшее будущее бронирование.
+     * При совпадении start у нескольких бронирований возвращаются все, порядок — по (start, id).
+     */
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.id IN ?1 AND b.status IN ?2 " +
+            "AND (b.start = (SELECT MAX(l.start) FROM Booking l " +
+            "WHERE l.item.id = b.item.id AND l.status IN ?2 AND l.start <= ?3) " +
+            "OR b.start = (SELECT MIN(n.start) FROM Booking n " +
+            "WHERE n.item.id = b.item.id AND n.status IN ?2 AND n.start > ?3)) " +
+            "ORDER BY b.start, b.id")
+    List<Booking> findLastAndNextByItemIdIn(Collection<Long> itemIds, Collection<BookingStatus> statuses,
+                                            LocalDateTime now);
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dao;
+
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+import ru.practicum.shareit.booking.enums.BookingState;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+
+    Window<BookingObjectsDto> findBookerBookings(Long bookerId, BookingState state, LocalDateTime now,
+                                                 ScrollPosition position, int limit);
+
+    Window<BookingObjectsDto> findOwnerBookings(Long ownerId, BookingState state, LocalDateTime now,
+                                                ScrollPosition position, int limit);
+
+    List<Booking> insertAll(List<Booking> bookings);
+}
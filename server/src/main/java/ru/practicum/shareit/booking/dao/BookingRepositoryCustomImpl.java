@@ -0,0 +1,167 @@
+package ru.practicum.shareit.booking.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+import ru.practicum.shareit.booking.enums.BookingPhase;
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    private static final String SELECT_DTO = "SELECT new ru.practicum.shareit.booking.dto.BookingObjectsDto(" +
+            "b.id, b.start, b.end, b.status, b.version, " +
+            "i.id, i.name, i.description, i.available, i.request.id, i.version, " +
+            "br.id, br.name, br.email) " +
+            "FROM Booking b " +
+            "JOIN b.item i " +
+            "JOIN b.booker br ";
+    private static final String INSERT = "INSERT INTO bookings (\"start\", \"end\", item_id, booker_id, status, phase) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Window<BookingObjectsDto> findBookerBookings(Long bookerId, BookingState state, LocalDateTime now,
+                                                        ScrollPosition position, int limit) {
+        return find("br.id", bookerId, state, now, position, limit);
+    }
+
+    @Override
+    public Window<BookingObjectsDto> findOwnerBookings(Long ownerId, BookingState state, LocalDateTime now,
+                                                       ScrollPosition position, int limit) {
+        return find("i.owner.id", ownerId, state, now, position, limit);
+    }
+
+    /**
+     * Вставка одним JDBC-батчем: с IDENTITY-ключами Hibernate батчить вставки не умеет.
+     */
+    @Override
+    public List<Booking> insertAll(List<Booking> bookings) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Booking booking : bookings) {
+            if (booking.getPhase() == null) {
+                booking.setPhase(BookingPhase.of(booking.getStart(), booking.getEnd(), now));
+            }
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Booking booking = bookings.get(i);
+                        ps.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+                        ps.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+                        ps.setLong(3, booking.getItem().getId());
+                        ps.setLong(4, booking.getBooker().getId());
+                        ps.setString(5, booking.getStatus().name());
+                        ps.setString(6, booking.getPhase().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            bookings.get(i).setVersion(0L);
+        }
+        return bookings;
+    }
+
+    /**
+     * Списки бронирований одной выборкой сразу в BookingObjectsDto, без загрузки ленивых item/booker.
+     * CURRENT/PAST/FUTURE отбираются по сохранённой фазе и уточняются границами относительно now. Фаза может
+     * отставать на интервал BookingPhaseUpdater, но никогда не опережает время, поэтому к строкам своей фазы
+     * добавляются только ещё не переведённые строки предыдущих фаз, а ответ совпадает с отбором по одним датам.
+     */
+    private Window<BookingObjectsDto> find(String userPath, Long userId, BookingState state, LocalDateTime now,
+                                           ScrollPosition position, int limit) {
+        StringBuilder jpql = new StringBuilder(SELECT_DTO)
+                .append("WHERE ").append(userPath).append(" = :userId ");
+        BookingStatus status = null;
+        List<BookingPhase> phases = List.of();
+        switch (state) {
+            case ALL:
+                break;
+            case CURRENT:
+                jpql.append("AND (b.phase = :current AND b.end > :now " +
+                        "OR b.phase = :future AND b.start < :now AND b.end > :now) ");
+                phases = List.of(BookingPhase.CURRENT, BookingPhase.FUTURE);
+                break;
+            case PAST:
+                jpql.append("AND (b.phase = :past OR b.phase IN (:future, :current) AND b.end < :now) ");
+                phases = List.of(BookingPhase.PAST, BookingPhase.FUTURE, BookingPhase.CURRENT);
+                break;
+            case FUTURE:
+                jpql.append("AND b.phase = :future AND b.start > :now ");
+                phases = List.of(BookingPhase.FUTURE);
+                break;
+            case WAITING:
+                status = BookingStatus.WAITING;
+                break;
+            case REJECTED:
+                status = BookingStatus.REJECTED;
+                break;
+            default:
+                throw new RuntimeException("Unknown state: UNSUPPORTED_STATUS");
+        }
+        if (status != null) {
+            jpql.append("AND b.status = :status ");
+        }
+        Map<String, Object> keys = position instanceof KeysetScrollPosition keyset ? keyset.getKeys() : Map.of();
+        if (!keys.isEmpty()) {
+            jpql.append("AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ");
+        }
+        jpql.append("ORDER BY b.start DESC, b.id DESC");
+
+        TypedQuery<BookingObjectsDto> query = entityManager.createQuery(jpql.toString(), BookingObjectsDto.class)
+                .setParameter("userId", userId);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (!phases.isEmpty()) {
+            query.setParameter("now", now);
+            for (BookingPhase phase : phases) {
+                query.setParameter(phase.name().toLowerCase(), phase);
+            }
+        }
+        if (!keys.isEmpty()) {
+            query.setParameter("cursorStart", keys.get("start"));
+            query.setParameter("cursorId", keys.get("id"));
+        }
+        if (position instanceof OffsetScrollPosition offset && !offset.isInitial()) {
+            query.setFirstResult(Math.toIntExact(offset.getOffset() + 1));
+        }
+        List<BookingObjectsDto> rows = query.setMaxResults(limit + 1).getResultList();
+
+        boolean hasNext = rows.size() > limit;
+        List<BookingObjectsDto> content = hasNext ? rows.subList(0, limit) : rows;
+        return Window.from(content, index -> ScrollPosition.forward(Map.of(
+                "start", content.get(index).getStart(),
+                "id", content.get(index).getId())), hasNext);
+    }
+}
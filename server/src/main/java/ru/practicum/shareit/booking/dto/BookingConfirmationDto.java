@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+@Data
+@Builder
+@FieldDefaults(makeFinal = false, level = AccessLevel.PRIVATE)
+public class BookingConfirmationDto {
+    Long bookingId;
+    BookingStatus status;
+    String error;
+}
@@ -32,6 +32,7 @@ public class BookingMapper {
                 .item(ItemMapper.mapToItemDto(booking.getItem()))
                 .booker(UserMapper.mapToUserDto(booking.getBooker()))
                 .status(booking.getStatus())
+                .version(booking.getVersion())
                 .build();
     }
 
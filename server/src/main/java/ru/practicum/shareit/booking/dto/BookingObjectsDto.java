@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.dto;
 
 import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.experimental.FieldDefaults;
@@ -12,6 +13,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Builder
+@AllArgsConstructor
 @FieldDefaults(makeFinal = false, level = AccessLevel.PRIVATE)
 public class BookingObjectsDto {
     Long id;
@@ -20,4 +22,27 @@ public class BookingObjectsDto {
     ItemDto item;
     UserDto booker;
     BookingStatus status;
+    Long version;
+
+    public BookingObjectsDto(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status, Long version,
+                             Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                             Long itemRequestId, Long itemVersion, Long bookerId, String bookerName,
+                             String bookerEmail) {
+        this(id, start, end,
+                ItemDto.builder()
+                        .id(itemId)
+                        .name(itemName)
+                        .description(itemDescription)
+                        .available(itemAvailable)
+                        .requestId(itemRequestId)
+                        .version(itemVersion)
+                        .build(),
+                UserDto.builder()
+                        .id(bookerId)
+                        .name(bookerName)
+                        .email(bookerEmail)
+                        .build(),
+                status,
+                version);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@FieldDefaults(makeFinal = false, level = AccessLevel.PRIVATE)
+public class BookingPageDto {
+    List<BookingObjectsDto> bookings;
+    String nextCursor;
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.enums;
+
+import java.time.LocalDateTime;
+
+/**
+ * Положение бронирования во времени. Хранится в bookings.phase и переводится вперёд по расписанию,
+ * чтобы CURRENT/PAST/FUTURE выбирались по индексу с фазой. Границы строгие: бронирование с end == now
+ * ещё не PAST, с start == now ещё не CURRENT, поэтому сохранённая фаза может отставать, но не опережает время.
+ */
+public enum BookingPhase {
+    FUTURE,
+    CURRENT,
+    PAST;
+
+    public static BookingPhase of(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (end.isBefore(now)) {
+            return PAST;
+        }
+        return start.isBefore(now) ? CURRENT : FUTURE;
+    }
+}
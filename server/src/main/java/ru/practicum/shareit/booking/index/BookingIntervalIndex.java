@@ -0,0 +1,162 @@
+package ru.practicum.shareit.booking.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш подтверждённых бронирований по вещам для проверки пересечения интервалов без запроса в БД.
+ * Индекс вещи загружается при первом обращении и обновляется при коммите подтверждения/отклонения.
+ * Кэш ограничен суммарным числом интервалов, вытесненная вещь загружается из БД заново.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, ItemIntervals> items;
+    private final AtomicLong modifications = new AtomicLong();
+    private final int startupCheckItems;
+    private volatile boolean enabled;
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.interval-index.enabled:true}") boolean enabled,
+                                @Value("${shareit.booking.interval-index.startup-check-items:20}") int startupCheckItems,
+                                @Value("${shareit.booking.interval-index.max-intervals:1000000}") long maxIntervals) {
+        this.bookingRepository = bookingRepository;
+        this.items = Caffeine.newBuilder()
+                .maximumWeight(maxIntervals)
+                .weigher((Long itemId, ItemIntervals intervals) -> intervals.size() + 1)
+                .build();
+        this.enabled = enabled;
+        this.startupCheckItems = startupCheckItems;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean hasOverlap(long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!enabled) {
+            return !bookingRepository.isAvailbleTime(itemId, start, end).isEmpty();
+        }
+        return intervals(itemId).overlaps(start, end);
+    }
+
+    public void onStatusChanged(Booking booking) {
+        onStatusChanged(booking.getItem().getId(), booking.getId(), booking.getStart(), booking.getEnd(),
+                booking.getStatus());
+    }
+
+    public void onStatusChanged(long itemId, long bookingId, LocalDateTime start, LocalDateTime end,
+                                BookingStatus status) {
+        Runnable update;
+        if (status == BookingStatus.APPROVED) {
+            update = () -> {
+                modifications.incrementAndGet();
+                items.asMap().computeIfPresent(itemId, (id, intervals) -> intervals.with(bookingId, start, end));
+            };
+        } else {
+            update = () -> {
+                modifications.incrementAndGet();
+                items.asMap().computeIfPresent(itemId, (id, intervals) -> intervals.without(bookingId));
+            };
+        }
+        beforeCommit(itemId, update);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkAgainstDatabase() {
+        if (!enabled || startupCheckItems <= 0) {
+            return;
+        }
+        List<Long> itemIds = bookingRepository.findRecentlyBookedItemIds(BookingStatus.APPROVED, Limit.of(startupCheckItems));
+        for (Long itemId : itemIds) {
+            ItemIntervals intervals = intervals(itemId);
+            for (int i = 0; i < intervals.size(); i++) {
+                if (!matchesDatabase(itemId, intervals, intervals.start(i), intervals.end(i))) {
+                    return;
+                }
+                if (i + 1 < intervals.size()) {
+                    LocalDateTime gapStart = intervals.end(i).plusSeconds(1);
+                    LocalDateTime gapEnd = intervals.start(i + 1).minusSeconds(1);
+                    if (gapStart.isBefore(gapEnd) && !matchesDatabase(itemId, intervals, gapStart, gapEnd)) {
+                        return;
+                    }
+                }
+            }
+        }
+        log.info("Индекс интервалов бронирований проверен по БД для {} вещей", itemIds.size());
+    }
+
+    private boolean matchesDatabase(long itemId, ItemIntervals intervals, LocalDateTime start, LocalDateTime end) {
+        boolean expected = !bookingRepository.isAvailbleTime(itemId, start, end).isEmpty();
+        if (intervals.overlaps(start, end) == expected) {
+            return true;
+        }
+        log.warn("Индекс интервалов вещи {} расходится с БД на [{}, {}], проверка переключена на SQL",
+                itemId, start, end);
+        enabled = false;
+        items.invalidateAll();
+        return false;
+    }
+
+    /**
+     * Интервалы вещи читаются из БД вне блокировок кэша (запрос внутри computeIfAbsent закреплял бы
+     * виртуальный поток за несущим). Результат кэшируется, только если за время чтения не было изменений индекса:
+     * иначе прочитанное могло не включать изменение, которое уже пропущено для отсутствующей вещи.
+     */
+    private ItemIntervals intervals(long itemId) {
+        ItemIntervals cached = items.getIfPresent(itemId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = modifications.get();
+        ItemIntervals loaded = load(itemId);
+        ItemIntervals result = items.asMap().compute(itemId,
+                (id, current) -> current != null || modifications.get() != seen ? current : loaded);
+        return result != null ? result : loaded;
+    }
+
+    private ItemIntervals load(long itemId) {
+        return ItemIntervals.of(bookingRepository.findByItemIdAndStatusOrderByStartAsc(itemId, BookingStatus.APPROVED));
+    }
+
+    /**
+     * Изменение применяется до коммита, пока транзакция ещё держит блокировку вещи, иначе следующий
+     * захвативший блокировку поток может проверить индекс раньше обновления. При откате индекс вещи сбрасывается.
+     */
+    private void beforeCommit(long itemId, Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                update.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                modifications.incrementAndGet();
+                if (status != STATUS_COMMITTED) {
+                    items.invalidate(itemId);
+                }
+            }
+        });
+    }
+}
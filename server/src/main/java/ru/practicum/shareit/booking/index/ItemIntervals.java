@@ -0,0 +1,130 @@
+package ru.practicum.shareit.booking.index;
+
+import ru.practicum.shareit.booking.Booking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Неизменяемый отсортированный по началу набор интервалов одной вещи.
+ * maxEnds[i] хранит максимальное окончание среди интервалов 0..i, поэтому
+ * проверка пересечения сводится к одному бинарному поиску.
+ */
+final class ItemIntervals {
+    private static final ItemIntervals EMPTY = new ItemIntervals(new long[0], new LocalDateTime[0], new LocalDateTime[0]);
+
+    private final long[] ids;
+    private final LocalDateTime[] starts;
+    private final LocalDateTime[] ends;
+    private final LocalDateTime[] maxEnds;
+
+    private ItemIntervals(long[] ids, LocalDateTime[] starts, LocalDateTime[] ends) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new LocalDateTime[ends.length];
+        for (int i = 0; i < ends.length; i++) {
+            maxEnds[i] = i == 0 || ends[i].isAfter(maxEnds[i - 1]) ? ends[i] : maxEnds[i - 1];
+        }
+    }
+
+    /**
+     * @param bookings бронирования, отсортированные по началу
+     */
+    static ItemIntervals of(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return EMPTY;
+        }
+        long[] ids = new long[bookings.size()];
+        LocalDateTime[] starts = new LocalDateTime[bookings.size()];
+        LocalDateTime[] ends = new LocalDateTime[bookings.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            if (i > 0 && booking.getStart().isBefore(starts[i - 1])) {
+                throw new IllegalArgumentException("Бронирования должны быть отсортированы по началу");
+            }
+            ids[i] = booking.getId();
+            starts[i] = booking.getStart();
+            ends[i] = booking.getEnd();
+        }
+        return new ItemIntervals(ids, starts, ends);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    LocalDateTime start(int i) {
+        return starts[i];
+    }
+
+    LocalDateTime end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * Та же семантика, что и у BookingRepository.isAvailbleTime: границы включаются.
+     */
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        int last = lastStartingNotAfter(end);
+        return last >= 0 && !maxEnds[last].isBefore(start);
+    }
+
+    ItemIntervals with(long id, LocalDateTime start, LocalDateTime end) {
+        ItemIntervals base = without(id);
+        int pos = base.lastStartingNotAfter(start) + 1;
+        int size = base.ids.length;
+        long[] newIds = new long[size + 1];
+        LocalDateTime[] newStarts = new LocalDateTime[size + 1];
+        LocalDateTime[] newEnds = new LocalDateTime[size + 1];
+        System.arraycopy(base.ids, 0, newIds, 0, pos);
+        System.arraycopy(base.starts, 0, newStarts, 0, pos);
+        System.arraycopy(base.ends, 0, newEnds, 0, pos);
+        newIds[pos] = id;
+        newStarts[pos] = start;
+        newEnds[pos] = end;
+        System.arraycopy(base.ids, pos, newIds, pos + 1, size - pos);
+        System.arraycopy(base.starts, pos, newStarts, pos + 1, size - pos);
+        System.arraycopy(base.ends, pos, newEnds, pos + 1, size - pos);
+        return new ItemIntervals(newIds, newStarts, newEnds);
+    }
+
+    ItemIntervals without(long id) {
+        int pos = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                pos = i;
+                break;
+            }
+        }
+        if (pos < 0) {
+            return this;
+        }
+        long[] newIds = new long[ids.length - 1];
+        LocalDateTime[] newStarts = new LocalDateTime[ids.length - 1];
+        LocalDateTime[] newEnds = new LocalDateTime[ids.length - 1];
+        System.arraycopy(ids, 0, newIds, 0, pos);
+        System.arraycopy(starts, 0, newStarts, 0, pos);
+        System.arraycopy(ends, 0, newEnds, 0, pos);
+        System.arraycopy(ids, pos + 1, newIds, pos, ids.length - pos - 1);
+        System.arraycopy(starts, pos + 1, newStarts, pos, ids.length - pos - 1);
+        System.arraycopy(ends, pos + 1, newEnds, pos, ids.length - pos - 1);
+        return new ItemIntervals(newIds, newStarts, newEnds);
+    }
+
+    private int lastStartingNotAfter(LocalDateTime time) {
+        int low = 0;
+        int high = starts.length - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid].isAfter(time)) {
+                high = mid - 1;
+            } else {
+                result = mid;
+                low = mid + 1;
+            }
+        }
+        return result;
+    }
+}
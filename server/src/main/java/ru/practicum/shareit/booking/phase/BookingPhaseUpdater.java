@@ -0,0 +1,38 @@
+package ru.practicum.shareit.booking.phase;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Переводит бронирования в следующую фазу, когда они пересекают начало или конец. Затрагиваются только
+ * пересёкшие границу строки, остальные не читаются. Первый запуск — при старте приложения, он же
+ * выставляет фазу бронированиям, созданным до появления колонки.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingPhaseUpdater {
+    private final BookingRepository bookingRepository;
+
+    @Scheduled(fixedDelayString = "${shareit.booking.phase.update-interval:PT1M}")
+    @Transactional
+    public void advance() {
+        advance(LocalDateTime.now());
+    }
+
+    @Transactional
+    public void advance(LocalDateTime now) {
+        // сначала закончившиеся, чтобы короткие бронирования не проходили через CURRENT
+        int past = bookingRepository.markPast(now);
+        int current = bookingRepository.markCurrent(now);
+        if (past > 0 || current > 0) {
+            log.debug("Фаза бронирований обновлена: {} в CURRENT, {} в PAST", current, past);
+        }
+    }
+}
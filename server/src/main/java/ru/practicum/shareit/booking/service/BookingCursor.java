@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.ScrollPosition;
+import ru.practicum.shareit.error.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Непрозрачный курсор keyset-пагинации по (start DESC, id DESC): base64url от "start|id".
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BookingCursor {
+    private static final String SEPARATOR = "|";
+
+    public static String encode(LocalDateTime start, Long id) {
+        String key = start + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ScrollPosition toScrollPosition(Integer from, Integer size, String cursor) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException(String.format("Некорректные параметры пагинации from = %d, size = %d", from, size));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            return decode(cursor);
+        }
+        return from == 0 ? ScrollPosition.keyset() : ScrollPosition.offset(from - 1);
+    }
+
+    private static ScrollPosition decode(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf(SEPARATOR);
+            LocalDateTime start = LocalDateTime.parse(key.substring(0, separator));
+            long id = Long.parseLong(key.substring(separator + 1));
+            return ScrollPosition.forward(Map.of("start", start, "id", id));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Некорректный курсор: " + cursor);
+        }
+    }
+}
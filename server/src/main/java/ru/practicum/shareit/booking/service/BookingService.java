@@ -1,22 +1,33 @@
 package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.dto.BookingConfirmationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 
 import java.util.List;
 
 public interface BookingService {
     BookingObjectsDto createBooking(Long userId, BookingDto bookingDto);
 
+    List<BookingObjectsDto> createBookings(Long userId, List<BookingDto> bookingDtos);
 
-    BookingObjectsDto confirmation(Long userId, boolean approved, Long bookingId);
+
+    BookingObjectsDto confirmation(Long userId, boolean approved, Long bookingId, Long expectedVersion);
+
+    List<BookingConfirmationDto> confirmAll(Long userId, boolean approved, List<Long> bookingIds);
 
 
     BookingObjectsDto getOnlyOwnerOrBooker(Long userId, Long bookingId);
 
-    List<BookingObjectsDto> getListOfUserBooker(Long userId, BookingState state);
+    BookingPageDto getListOfUserBooker(Long userId, BookingState state, Integer from, Integer size, String cursor);
+
+    BookingPageDto getListBookerOfOwnerItems(Long userId, BookingState state, Integer from, Integer size, String cursor);
 
-    List<BookingObjectsDto> getListBookerOfOwnerItems(Long userId, BookingState state);
+    /**
+     * Проверяет, что пользователь может подписаться на поток изменений бронирований.
+     */
+    void checkSubscriber(Long userId);
 
 }
\ No newline at end of file
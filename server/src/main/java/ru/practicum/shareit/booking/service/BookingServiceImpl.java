@@ -1,33 +1,48 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingConfirmationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.stream.BookingStream;
 import ru.practicum.shareit.error.AccessDeniedException;
 import ru.practicum.shareit.error.NotFoundException;
 import ru.practicum.shareit.error.ValidationException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.user.User;
-import ru.practicum.shareit.user.dao.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
-    private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final EntityLookup entityLookup;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingStream bookingStream;
 
     @Override
     @Transactional
@@ -35,13 +50,13 @@ public class BookingServiceImpl implements BookingService {
         if (bookingDto.getStart().isAfter(bookingDto.getEnd())) {
             throw new ValidationException("Дата начала бронирования должна быть до даты окончания");
         }
-        if (!getItem(bookingDto.getItemId()).isAvailable()) {
+        long itemId = bookingDto.getItemId();
+        Item item = lockItem(itemId);
+        if (!item.isAvailable()) {
             throw new IllegalArgumentException("Вещь недоступна для бронирования");
         }
 
-        User booker = getUser(userId);
-        long itemId = bookingDto.getItemId();
-        Item item = getItem(itemId);
+        User booker = entityLookup.user(userId);
         bookingDto.setStatus(BookingStatus.WAITING);
 
         if (isOwner(userId, item)) {
@@ -49,8 +64,7 @@ public class BookingServiceImpl implements BookingService {
                     "Пользователь с ID %d не может забронировать свою же вещь (ID %d)", userId, itemId));
         }
 
-        List<Booking> bookings = bookingRepository.isAvailbleTime(itemId, bookingDto.getStart(), bookingDto.getEnd());
-        if (!bookings.isEmpty()) {
+        if (bookingIntervalIndex.hasOverlap(itemId, bookingDto.getStart(), bookingDto.getEnd())) {
             throw new ValidationException("Время для бронирования недоступно");
         }
 
@@ -58,21 +72,82 @@ public class BookingServiceImpl implements BookingService {
                 bookingDto,
                 item,
                 booker));
+        bookingIntervalIndex.onStatusChanged(booking);
 
-        return BookingMapper.mapToBookingDtoOut(booking);
+        BookingObjectsDto result = BookingMapper.mapToBookingDtoOut(booking);
+        bookingStream.publish(item.getOwner().getId(), result);
+        return result;
     }
 
     @Override
     @Transactional
-    public BookingObjectsDto confirmation(Long userId, boolean approved, Long bookingId) {
+    public List<BookingObjectsDto> createBookings(Long userId, List<BookingDto> bookingDtos) {
+        if (bookingDtos.isEmpty()) {
+            return List.of();
+        }
+        for (BookingDto bookingDto : bookingDtos) {
+            if (bookingDto.getItemId() == null) {
+                throw new ValidationException("Отсутствует itemId");
+            }
+            if (bookingDto.getStart().isAfter(bookingDto.getEnd())) {
+                throw new ValidationException("Дата начала бронирования должна быть до даты окончания");
+            }
+        }
+
+        User booker = entityLookup.user(userId);
+        Set<Long> itemIds = bookingDtos.stream().map(BookingDto::getItemId).collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllByIdForUpdate(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<Booking> bookings = new ArrayList<>();
+        for (BookingDto bookingDto : bookingDtos) {
+            long itemId = bookingDto.getItemId();
+            Item item = items.get(itemId);
+            if (item == null) {
+                throw new NotFoundException(String.format("Item с id = %d не найден", itemId));
+            }
+            if (!item.isAvailable()) {
+                throw new IllegalArgumentException("Вещь недоступна для бронирования");
+            }
+            if (isOwner(userId, item)) {
+                throw new ValidationException(String.format(
+                        "Пользователь с ID %d не может забронировать свою же вещь (ID %d)", userId, itemId));
+            }
+            if (bookingIntervalIndex.hasOverlap(itemId, bookingDto.getStart(), bookingDto.getEnd())) {
+                throw new ValidationException(String.format("Время для бронирования вещи с ID %d недоступно", itemId));
+            }
+            bookingDto.setStatus(BookingStatus.WAITING);
+            bookings.add(BookingMapper.mapToBooking(bookingDto, item, booker));
+        }
+
+        bookings = bookingRepository.insertAll(bookings);
+        bookings.forEach(bookingIntervalIndex::onStatusChanged);
+        List<BookingObjectsDto> result = BookingMapper.mapToBookingDtoOut(bookings);
+        for (int i = 0; i < bookings.size(); i++) {
+            bookingStream.publish(bookings.get(i).getItem().getOwner().getId(), result.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public BookingObjectsDto confirmation(Long userId, boolean approved, Long bookingId, Long expectedVersion) {
         Booking booking = bookingRepository.getBookerWithAll(bookingId)
                 .orElseThrow(() -> new NotFoundException("Booking не был найден по id = " + bookingId));
         if (!booking.getItem().getOwner().getId().equals(userId)) throw new AccessDeniedException(
                 "User id не является владельцем вещи");
+        if (expectedVersion != null && !expectedVersion.equals(booking.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Booking.class, bookingId);
+        }
+        // отклонение подтверждённого тоже меняет интервалы вещи, поэтому блокировка нужна при любом решении
+        Item item = lockItem(booking.getItem().getId());
         if (approved) {
             if (booking.getStatus().equals(BookingStatus.APPROVED)) {
                 throw new ValidationException(String.format("Бронирование с id %d уже подтверждено", bookingId));
             }
+            if (bookingIntervalIndex.hasOverlap(item.getId(), booking.getStart(), booking.getEnd())) {
+                throw new ValidationException("Время для бронирования недоступно");
+            }
             booking.setStatus(BookingStatus.APPROVED);
         } else {
             if (booking.getStatus().equals(BookingStatus.REJECTED)) {
@@ -80,8 +155,66 @@ public class BookingServiceImpl implements BookingService {
             }
             booking.setStatus(BookingStatus.REJECTED);
         }
-        booking = bookingRepository.save(booking);
-        return BookingMapper.mapToBookingDtoOut(booking);
+        // конфликт версий всплывает здесь, до обновления индекса, а не при коммите
+        booking = bookingRepository.saveAndFlush(booking);
+        bookingIntervalIndex.onStatusChanged(booking);
+        BookingObjectsDto result = BookingMapper.mapToBookingDtoOut(booking);
+        bookingStream.publish(userId, result);
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public List<BookingConfirmationDto> confirmAll(Long userId, boolean approved, List<Long> bookingIds) {
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        Map<Long, Booking> bookings = bookingRepository.findAllByItemOwnerIdAndIdIn(userId, ids).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        if (!bookings.isEmpty()) {
+            itemRepository.findAllByIdForUpdate(bookings.values().stream()
+                    .map(booking -> booking.getItem().getId())
+                    .collect(Collectors.toSet()));
+        }
+
+        List<BookingConfirmationDto> results = new ArrayList<>();
+        List<Booking> confirmed = new ArrayList<>();
+        for (Long id : ids) {
+            Booking booking = bookings.get(id);
+            String error = null;
+            if (booking == null) {
+                error = String.format("Бронирование с id %d не найдено или пользователь не является владельцем вещи", id);
+            } else if (booking.getStatus() == status) {
+                error = String.format(approved ? "Бронирование с id %d уже подтверждено"
+                        : "Бронирование с id %d уже отклонено", id);
+            } else if (approved && (bookingIntervalIndex.hasOverlap(booking.getItem().getId(),
+                    booking.getStart(), booking.getEnd()) || overlapsAny(booking, confirmed))) {
+                error = "Время для бронирования недоступно";
+            }
+            if (error == null) {
+                confirmed.add(booking);
+            }
+            results.add(BookingConfirmationDto.builder()
+                    .bookingId(id)
+                    .status(error == null ? status : booking == null ? null : booking.getStatus())
+                    .error(error)
+                    .build());
+        }
+
+        if (!confirmed.isEmpty()) {
+            updateStatus(status, confirmed);
+            confirmed.forEach(booking -> bookingIntervalIndex.onStatusChanged(booking.getItem().getId(),
+                    booking.getId(), booking.getStart(), booking.getEnd(), status));
+            // бронирования уже отсоединены от контекста, изменения для подписчиков ничего не запишут в базу
+            confirmed.forEach(booking -> {
+                booking.setStatus(status);
+                booking.setVersion(booking.getVersion() + 1);
+                bookingStream.publish(userId, BookingMapper.mapToBookingDtoOut(booking));
+            });
+        }
+        return results;
     }
 
     @Override
@@ -93,75 +226,69 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingObjectsDto> getListOfUserBooker(Long userId, BookingState state) {
-        LocalDateTime time = LocalDateTime.now();
-        getUser(userId);
-        List<Booking> bookings;
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findAllByBookerIdOrderByStartDesc(userId);
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(userId, time, time);
-                break;
-            case PAST:
-                bookings = bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(userId, time);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findByBookerIdAndStartIsAfterOrderByStartDesc(userId, time);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByBookerIdAndStatusOrderByStartDesc(userId, BookingStatus.WAITING);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByBookerIdAndStatusOrderByStartDesc(userId, BookingStatus.REJECTED);
-                break;
-            default:
-                throw new RuntimeException("Unknown state: UNSUPPORTED_STATUS");
-        }
-        return BookingMapper.mapToBookingDtoOut(bookings);
+    public BookingPageDto getListOfUserBooker(Long userId, BookingState state, Integer from, Integer size, String cursor) {
+        ScrollPosition position = BookingCursor.toScrollPosition(from, size, cursor);
+        entityLookup.user(userId);
+        return toPage(bookingRepository.findBookerBookings(userId, state, LocalDateTime.now(), position, size));
+    }
+
+    @Override
+    public BookingPageDto getListBookerOfOwnerItems(Long userId, BookingState state, Integer from, Integer size, String cursor) {
+        ScrollPosition position = BookingCursor.toScrollPosition(from, size, cursor);
+        entityLookup.user(userId);
+        return toPage(bookingRepository.findOwnerBookings(userId, state, LocalDateTime.now(), position, size));
     }
 
     @Override
-    public List<BookingObjectsDto> getListBookerOfOwnerItems(Long userId, BookingState state) {
-        LocalDateTime time = LocalDateTime.now();
-        getUser(userId);
-        List<Booking> bookings;
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findByItemOwnerIdOrderByStartDesc(userId);
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(userId, time, time);
-                break;
-            case PAST:
-                bookings = bookingRepository.findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(userId, time);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findByItemOwnerIdAndStartIsAfterOrderByStartDesc(userId, time);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(userId, BookingStatus.WAITING);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(userId, BookingStatus.REJECTED);
-                break;
-            default:
-                throw new RuntimeException("Unknown state: UNSUPPORTED_STATUS");
+    @Transactional(readOnly = true)
+    public void checkSubscriber(Long userId) {
+        // короткая транзакция: соединение возвращается в пул до открытия потока, который живёт минутами
+        entityLookup.user(userId);
+    }
+
+    private BookingPageDto toPage(Window<BookingObjectsDto> bookings) {
+        List<BookingObjectsDto> content = bookings.getContent();
+        String nextCursor = null;
+        if (bookings.hasNext() && !content.isEmpty()) {
+            BookingObjectsDto last = content.get(content.size() - 1);
+            nextCursor = BookingCursor.encode(last.getStart(), last.getId());
         }
-        return BookingMapper.mapToBookingDtoOut(bookings);
+        return BookingPageDto.builder()
+                .bookings(content)
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    private User getUser(Long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format("User с id = %d не найден", userId)));
+    /**
+     * Одно обновление на каждую встретившуюся версию, обычно одно на все: бронирование, изменённое после чтения,
+     * не обновится, и весь пакет откатится с конфликтом.
+     */
+    private void updateStatus(BookingStatus status, List<Booking> bookings) {
+        Map<Long, List<Long>> idsByVersion = bookings.stream().collect(Collectors.groupingBy(Booking::getVersion,
+                Collectors.mapping(Booking::getId, Collectors.toList())));
+        idsByVersion.forEach((version, ids) -> {
+            if (bookingRepository.updateStatus(status, ids, version) != ids.size()) {
+                throw new ObjectOptimisticLockingFailureException(Booking.class, ids);
+            }
+        });
     }
 
-    private Item getItem(Long itemId) {
-        return itemRepository.findById(itemId)
+    /**
+     * Блокирует строку вещи до конца транзакции: проверка пересечений и любая смена статуса бронирования
+     * для одной вещи выполняются последовательно, бронирования разных вещей не мешают друг другу.
+     * Пока смена статуса не закоммичена, индекс интервалов этой вещи не загрузится со старым статусом.
+     */
+    private Item lockItem(Long itemId) {
+        return itemRepository.findByIdForUpdate(itemId)
                 .orElseThrow(() -> new NotFoundException(String.format("Item с id = %d не найден", itemId)));
     }
 
+    private boolean overlapsAny(Booking booking, List<Booking> others) {
+        return others.stream().anyMatch(other -> other.getItem().getId().equals(booking.getItem().getId())
+                && !other.getStart().isAfter(booking.getEnd())
+                && !other.getEnd().isBefore(booking.getStart()));
+    }
+
     private boolean isOwner(long userId, Item item) {
         long ownerId = item.getOwner().getId();
         return ownerId == userId;
@@ -0,0 +1,191 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Изменения бронирований для подписчиков GET /bookings/stream: арендатор и владелец вещи получают бронирование
+ * после коммита его создания, подтверждения или отклонения. У каждого подписчика своя ограниченная очередь
+ * и свой виртуальный поток отправки, так что медленный клиент не задерживает ни публикацию, ни других подписчиков.
+ * Подписчик, переполнивший очередь, отключается: переподключившись, он перечитывает бронирования запросом.
+ * У пользователя не больше maxPerUser потоков: новый вытесняет самый старый, который после обрыва сети
+ * мог остаться висеть до таймаута. В паузах между событиями отправляется комментарий, чтобы соединение
+ * не закрывали по простою; отключение клиента обнаруживается на нём же и просто снимает подписку.
+ * Существование пользователя проверяет вызывающий: поток не держит ни транзакции, ни соединения с базой.
+ */
+@Slf4j
+@Component
+public class BookingStream {
+    private final Map<Long, Deque<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final Counter overflows;
+
+    public BookingStream(MeterRegistry registry,
+                         @Value("${shareit.booking.stream.buffer-size:64}") int bufferSize,
+                         @Value("${shareit.booking.stream.max-per-user:5}") int maxPerUser,
+                         @Value("${shareit.booking.stream.timeout:30m}") Duration timeout,
+                         @Value("${shareit.booking.stream.heartbeat:15s}") Duration heartbeat) {
+        this.bufferSize = bufferSize;
+        this.maxPerUser = maxPerUser;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.overflows = Counter.builder("shareit.booking.stream.overflows")
+                .description("Подписчики, отключённые из-за переполнения очереди")
+                .register(registry);
+        Gauge.builder("shareit.booking.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Подписчики на изменения бронирований")
+                .register(registry);
+    }
+
+    public SseEmitter subscribe(long userId) {
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeout.toMillis()));
+        List<Subscriber> evicted = new ArrayList<>();
+        subscribers.compute(userId, (id, userSubscribers) -> {
+            Deque<Subscriber> result = userSubscribers != null ? userSubscribers : new ConcurrentLinkedDeque<>();
+            result.addLast(subscriber);
+            while (result.size() > maxPerUser) {
+                evicted.add(result.pollFirst());
+            }
+            return result;
+        });
+        subscriberCount.addAndGet(1 - evicted.size());
+        evicted.forEach(Subscriber::close);
+        subscriber.start();
+        return subscriber.emitter;
+    }
+
+    /**
+     * Отправляет бронирование арендатору и владельцу вещи после коммита текущей транзакции, при откате — никому.
+     */
+    public void publish(long ownerId, BookingObjectsDto booking) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Runnable delivery = () -> {
+            deliver(booking.getBooker().getId(), booking);
+            if (ownerId != booking.getBooker().getId()) {
+                deliver(ownerId, booking);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delivery.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delivery.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(Subscriber::close));
+    }
+
+    private void deliver(long userId, BookingObjectsDto booking) {
+        Deque<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers != null) {
+            userSubscribers.forEach(subscriber -> subscriber.offer(booking));
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            if (userSubscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+
+    private final class Subscriber {
+        private final long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<BookingObjectsDto> queue = new ArrayBlockingQueue<>(bufferSize);
+        private volatile Thread sender;
+
+        private Subscriber(long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            emitter.onCompletion(() -> stop());
+            emitter.onTimeout(() -> stop());
+            emitter.onError(error -> stop());
+        }
+
+        void start() {
+            sender = Thread.ofVirtual().name("booking-stream-" + userId).start(this::send);
+        }
+
+        void offer(BookingObjectsDto booking) {
+            if (!queue.offer(booking)) {
+                overflows.increment();
+                log.warn("Подписчик пользователя с ID: {} не успевает получать бронирования и отключён", userId);
+                close();
+            }
+        }
+
+        void close() {
+            stop();
+            emitter.complete();
+        }
+
+        private void stop() {
+            remove(this);
+            Thread thread = sender;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+
+        private void send() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    BookingObjectsDto booking = queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    if (booking == null) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .name("booking")
+                                .id(booking.getId() + "-" + booking.getVersion())
+                                .data(booking, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // клиент отключился или поток уже завершён: это не ошибка сервера, контейнер сам завершит запрос
+                log.debug("Поток бронирований пользователя с ID: {} закрыт: {}", userId, e.toString());
+                stop();
+            }
+        }
+    }
+}
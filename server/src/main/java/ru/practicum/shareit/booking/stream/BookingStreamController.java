@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking.stream;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.error.ErrorResponse;
+import ru.practicum.shareit.error.NotFoundException;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping(path = "/bookings")
+@RequiredArgsConstructor
+@Slf4j
+public class BookingStreamController {
+    private final BookingService bookingService;
+    private final BookingStream bookingStream;
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Подписка пользователя с ID: {} на изменения бронирований", userId);
+        bookingService.checkSubscriber(userId);
+        return bookingStream.subscribe(userId);
+    }
+
+    /**
+     * Отправка в соединение, которое клиент уже закрыл: отвечать некому, и это не ошибка сервера.
+     */
+    @ExceptionHandler
+    public void handle(final IOException e) {
+        log.debug("Клиент закрыл поток изменений бронирований: {}", e.toString());
+    }
+
+    /**
+     * Клиент потока принимает только text/event-stream, поэтому тип ответа об ошибке задаётся явно.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handle(final NotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorResponse(e.getMessage()));
+    }
+}
@@ -2,6 +2,8 @@ package ru.practicum.shareit.item;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.user.User;
 
@@ -11,6 +13,8 @@ import jakarta.persistence.*;
 @FieldDefaults(makeFinal = false, level = AccessLevel.PRIVATE)
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NoArgsConstructor
 public class Item {
     @Id
@@ -36,4 +40,8 @@ public class Item {
     @ToString.Exclude
     @JoinColumn(name = "request_id")
     ItemRequest request;
+
+    @Version
+    @Column(nullable = false)
+    Long version;
 }
\ No newline at end of file
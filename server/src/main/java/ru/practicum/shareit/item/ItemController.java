@@ -2,12 +2,20 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchPageDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.web.IfMatch;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -16,6 +24,9 @@ import java.util.List;
 @RequiredArgsConstructor
 @Slf4j
 public class ItemController {
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_COUNT_CAPPED_HEADER = "X-Total-Count-Capped";
+
     private final ItemService itemService;
 
     @GetMapping
@@ -46,33 +57,51 @@ public class ItemController {
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(@RequestHeader("X-Sharer-User-Id") long userId,
                               @PathVariable long itemId,
-                              @RequestBody ItemDto itemDto) {
+                              @RequestBody ItemDto itemDto,
+                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Обновление предмета с ID: {} для пользователя с ID: {}, новые данные: {}", itemId, userId, itemDto);
-        ItemDto result = itemService.updateItem(userId, itemId, itemDto);
+        ItemDto result = itemService.updateItem(userId, itemId, itemDto, IfMatch.version(ifMatch));
         log.info("Предмет с ID: {} для пользователя с ID: {} успешно обновлен: {}", itemId, userId, result);
         return result;
     }
 
     @GetMapping("/{itemId}")
-    public ItemWithCommentDto getItem(@RequestHeader("X-Sharer-User-Id") long userId,
-                                      @PathVariable long itemId) {
+    public ResponseEntity<ItemWithCommentDto> getItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                      @PathVariable long itemId,
+                                                      WebRequest request) {
         log.info("Получение предмета с ID: {} для пользователя с ID: {}", itemId, userId);
+        // на повторный запрос 304 отдаётся по версии и именам авторов, без бронирований и самих комментариев
+        Long version = itemService.getItemVersion(userId, itemId);
+        if (version != null
+                && request.checkNotModified(etag(version, itemService.getCommentAuthorNames(itemId), null, null))) {
+            log.info("Предмет с ID: {} для пользователя с ID: {} не изменился", itemId, userId);
+            return null;
+        }
         ItemWithCommentDto result = itemService.getItem(userId, itemId);
         log.info("Предмет с ID: {} для пользователя с ID: {} получен: {}", itemId, userId, result);
-        return result;
+        return ResponseEntity.ok().eTag(etag(result)).body(result);
     }
 
     @GetMapping("/search")
-    public List<ItemDto> searchItems(@RequestHeader("X-Sharer-User-Id") long userId,
-                                     @RequestParam String text) {
-        log.info("Поиск предметов по тексту: '{}' для пользователя с ID: {}", text, userId);
+    public ResponseEntity<List<ItemDto>> searchItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                     @RequestParam String text,
+                                                     @RequestParam(defaultValue = "0") int from,
+                                                     @RequestParam(defaultValue = "10") int size) {
+        log.info("Поиск предметов по тексту: '{}' для пользователя с ID: {}, from: {}, size: {}",
+                text, userId, from, size);
         if (text.isEmpty()) {
             log.info("Текст для поиска пуст, возвращаем пустой список");
-            return Collections.emptyList();
+            return ResponseEntity.ok(Collections.emptyList());
         }
-        List<ItemDto> result = itemService.searchByText(text, userId);
-        log.info("Результаты поиска предметов для пользователя с ID: {}, количество: {}", userId, result.size());
-        return result;
+        ItemSearchPageDto page = itemService.searchByText(text, userId, from, size);
+        log.info("Результаты поиска предметов для пользователя с ID: {}, количество: {}, всего: {}",
+                userId, page.getItems().size(), page.getTotalHits());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotalHits()));
+        if (page.isTotalHitsCapped()) {
+            response.header(TOTAL_COUNT_CAPPED_HEADER, "true");
+        }
+        return response.body(page.getItems());
     }
 
     @PostMapping("/{itemId}/comment")
@@ -86,4 +115,32 @@ public class ItemController {
         log.info("Комментарий для предмета с ID: {} пользователем с ID: {} успешно создан: {}", itemId, userId, result);
         return result;
     }
-}
\ No newline at end of file
+
+    private static String etag(ItemWithCommentDto item) {
+        return etag(item.getVersion(), item.getComments().stream().map(CommentDto::getAuthorName).toList(),
+                item.getLastBooking(), item.getNextBooking());
+    }
+
+    /**
+     * Сильный ETag: ответ определяется им целиком. Комментарии меняют версию вещи, а имена их авторов
+     * (пользователи без версии) входят хэшем. Последнее и следующее бронирования в ответе владельцу
+     * сменяются новыми бронированиями и просто со временем, поэтому тоже входят уточнением.
+     */
+    private static String etag(long version, Collection<String> authorNames, BookingItemDto lastBooking,
+                               BookingItemDto nextBooking) {
+        List<Object> qualifiers = new ArrayList<>();
+        if (!authorNames.isEmpty()) {
+            qualifiers.add(IfMatch.digest(authorNames.stream().sorted().toList()));
+        }
+        if (lastBooking != null || nextBooking != null) {
+            qualifiers.add(bookingId(lastBooking));
+            qualifiers.add(bookingId(nextBooking));
+        }
+        return IfMatch.strongEtag(version, qualifiers.toArray());
+    }
+
+
+    private static long bookingId(BookingItemDto booking) {
+        return booking != null ? booking.getId() : 0;
+    }
+}
@@ -1,10 +1,17 @@
 package ru.practicum.shareit.item.dao;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.Comment;
 
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByItemIdOrderByCreatedDesc(Long itemId);
+
+    @Query("SELECT u.name " +
+            "FROM Comment c " +
+            "JOIN c.author u " +
+            "WHERE c.item.id = ?1")
+    List<String> findAuthorNamesByItemId(Long itemId);
 }
\ No newline at end of file
@@ -1,35 +1,63 @@
 package ru.practicum.shareit.item.dao;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import ru.practicum.shareit.item.Item;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long>, CrudRepository<Item, Long> {
 
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT i " +
             "FROM Item i " +
             "JOIN FETCH i.owner o " +
             "WHERE i.id = ?1")
     Optional<Item> findByIdFetch(Long itemId);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i " +
+            "FROM Item i " +
+            "WHERE i.id = ?1")
+    Optional<Item> findByIdForUpdate(Long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT i " +
+            "FROM Item i " +
+            "WHERE i.id = ?1")
+    Optional<Item> findByIdIncrementingVersion(Long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i " +
+            "FROM Item i " +
+            "JOIN FETCH i.owner o " +
+            "WHERE i.id IN ?1 " +
+            "ORDER BY i.id")
+    List<Item> findAllByIdForUpdate(Collection<Long> itemIds);
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     List<Item> findItemsByOwnerId(Long userId);
 
-    void deleteByIdAndOwnerId(Long itemId, Long userId);
+    long deleteByIdAndOwnerId(Long itemId, Long userId);
 
-    Optional<Item> findByIdAndOwnerId(Long itemId, Long userId);
 
     @Query("SELECT i " +
             "FROM Item i " +
             "WHERE i.available = true " +
             "AND (LOWER(i.name) LIKE CONCAT('%', ?1, '%') " +
             "OR LOWER(i.description) LIKE CONCAT('%', ?1, '%'))")
-
     List<Item> getListILikeByText(String text);
 
+    List<Item> findAllByAvailableTrue();
+
     List<Item> findByRequestId(Long requestId);
 
     List<Item> findByRequestIdIn(List<Long> requestId);
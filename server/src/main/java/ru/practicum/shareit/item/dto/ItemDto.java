@@ -19,6 +19,7 @@ public class ItemDto {
     String description;
     Boolean available;
     Long requestId;
+    Long version;
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@FieldDefaults(makeFinal = false, level = AccessLevel.PRIVATE)
+public class ItemSearchPageDto {
+    List<ItemDto> items;
+    long totalHits;
+    boolean totalHitsCapped;
+}
@@ -20,6 +20,7 @@ public class ItemWithCommentDto {
     String description;
     Boolean available;
     Long requestId;
+    Long version;
     BookingItemDto lastBooking;
     BookingItemDto nextBooking;
 
@@ -0,0 +1,361 @@
+package ru.practicum.shareit.item.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchPageDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Инвертированный индекс доступных вещей по n-граммам (1–3 символа) названия и описания.
+ * Даёт тот же результат, что и LOWER(...) LIKE '%text%': кандидаты берутся из пересечения списков
+ * триграмм запроса и проверяются по тексту. До построения индекса поиск идёт через SQL.
+ * Изменения приходят после коммита в произвольном порядке, поэтому применяются по версии вещи:
+ * запоздавшее изменение не затирает более новое, а убранную вещь не возвращает её старая версия.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final int MAX_GRAM = 3;
+    private static final long DELETED = Long.MAX_VALUE;
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparing((Hit hit) -> hit.nameOccurrences() == 0)
+            .thenComparing(Hit::nameOccurrences, Comparator.reverseOrder())
+            .thenComparing(Hit::descriptionOccurrences, Comparator.reverseOrder())
+            .thenComparingLong(hit -> hit.document().id());
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final int maxTotalHits;
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    // версии, с которыми вещи убраны из индекса; пишутся только под writeLock
+    private final Map<Long, Long> removed = new ConcurrentHashMap<>();
+    private final Lock writeLock = new ReentrantLock();
+    // изменения, пришедшие во время чтения вещей для rebuild; под writeLock
+    private List<Runnable> duringRebuild;
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.item.search-index.enabled:true}") boolean enabled,
+                           @Value("${shareit.item.search.max-total-hits:1000}") int maxTotalHits) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+        this.maxTotalHits = maxTotalHits;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Страница вещей, у которых название или описание содержит text без учёта регистра.
+     * Сначала совпадения в названии, дальше по числу вхождений в названии и в описании, затем по id.
+     * Общее число найденных ограничено maxTotalHits. Пока индекс не построен, совпадения ищутся через SQL.
+     */
+    public ItemSearchPageDto search(String text, int from, int size) {
+        String query = normalize(text);
+        List<Document> matches;
+        if (ready) {
+            matches = find(query);
+        } else {
+            matches = new ArrayList<>();
+            itemRepository.getListILikeByText(query).forEach(item -> matches.add(Document.of(item)));
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+        long window = (long) from + size;
+        for (Document document : matches) {
+            top.add(new Hit(document, document.occurrencesInName(query), document.occurrencesInDescription(query)));
+            if (top.size() > window) {
+                top.poll();
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+
+        List<ItemDto> items = new ArrayList<>();
+        for (int i = from; i < ranked.size(); i++) {
+            items.add(ranked.get(i).document().toDto());
+        }
+        return ItemSearchPageDto.builder()
+                .items(items)
+                .totalHits(Math.min(matches.size(), maxTotalHits))
+                .totalHitsCapped(matches.size() > maxTotalHits)
+                .build();
+    }
+
+    public void onItemSaved(Item item) {
+        Document document = item.isAvailable() ? Document.of(item) : null;
+        long itemId = item.getId();
+        Long version = item.getVersion();
+        afterCommit(() -> {
+            if (document == null) {
+                remove(itemId, version);
+            } else {
+                put(document);
+            }
+        });
+    }
+
+    public void onItemDeleted(long itemId) {
+        afterCommit(() -> remove(itemId, DELETED));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<Runnable> changes = new ArrayList<>();
+        List<Document> loaded;
+        writeLock.lock();
+        try {
+            duringRebuild = changes;
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            loaded = itemRepository.findAllByAvailableTrue().stream().map(Document::of).toList();
+        } catch (RuntimeException e) {
+            stopRecording(changes);
+            throw e;
+        }
+        writeLock.lock();
+        try {
+            stopRecording(changes);
+            ready = false;
+            documents.clear();
+            postings.clear();
+            removed.clear();
+            loaded.forEach(this::putLocked);
+            // коммиты во время чтения могли не попасть в прочитанное: применяются поверх по версиям
+            changes.forEach(Runnable::run);
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Поисковый индекс вещей построен: {} вещей, {} n-грамм", documents.size(), postings.size());
+    }
+
+    private List<Document> find(String query) {
+        Set<Long> smallest = null;
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : queryGrams(query)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        if (smallest == null) {
+            return List.of();
+        }
+        List<Document> result = new ArrayList<>();
+        for (Long id : smallest) {
+            Document document = documents.get(id);
+            if (document != null && allContain(lists, id) && document.contains(query)) {
+                result.add(document);
+            }
+        }
+        return result;
+    }
+
+    private void stopRecording(List<Runnable> changes) {
+        writeLock.lock();
+        try {
+            if (duringRebuild == changes) {
+                duringRebuild = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void put(Document document) {
+        writeLock.lock();
+        try {
+            putLocked(document);
+            if (duringRebuild != null) {
+                duringRebuild.add(() -> putLocked(document));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void putLocked(Document document) {
+        Document previous = documents.get(document.id());
+        if (isOutdated(document.version(), previous != null ? previous.version() : removed.get(document.id()))) {
+            return;
+        }
+        removed.remove(document.id());
+        Set<String> grams = document.grams();
+        // новые n-граммы добавляются до замены документа, старые удаляются после: конкурентный поиск
+        // всегда находит либо прежнюю, либо новую версию вещи
+        grams.forEach(gram -> postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(document.id()));
+        documents.put(document.id(), document);
+        if (previous != null) {
+            previous.grams().stream()
+                    .filter(gram -> !grams.contains(gram))
+                    .forEach(gram -> unlink(gram, document.id()));
+        }
+    }
+
+    private void remove(long itemId, Long version) {
+        writeLock.lock();
+        try {
+            removeLocked(itemId, version);
+            if (duringRebuild != null) {
+                duringRebuild.add(() -> removeLocked(itemId, version));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void removeLocked(long itemId, Long version) {
+        Document previous = documents.get(itemId);
+        if (isOutdated(version, previous != null ? previous.version() : removed.get(itemId))) {
+            return;
+        }
+        if (version != null) {
+            removed.put(itemId, version);
+        }
+        if (previous != null) {
+            documents.remove(itemId);
+            previous.grams().forEach(gram -> unlink(gram, itemId));
+        }
+    }
+
+    private void unlink(String gram, long itemId) {
+        postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(itemId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * Без версии у одной из сторон порядок неизвестен, и изменение применяется.
+     */
+    private static boolean isOutdated(Long version, Long current) {
+        return version != null && current != null && version < current;
+    }
+
+    private static boolean allContain(List<Set<Long>> lists, Long id) {
+        for (Set<Long> ids : lists) {
+            if (!ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> queryGrams(String query) {
+        if (query.length() <= MAX_GRAM) {
+            return query.isEmpty() ? List.of() : List.of(query);
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+            grams.add(query.substring(i, i + MAX_GRAM));
+        }
+        return new ArrayList<>(grams);
+    }
+
+    private static void addGrams(String text, Set<String> grams) {
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= text.length(); i++) {
+                grams.add(text.substring(i, i + n));
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static int occurrences(String text, String query) {
+        int count = 0;
+        for (int i = text.indexOf(query); i >= 0; i = text.indexOf(query, i + query.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private record Hit(Document document, int nameOccurrences, int descriptionOccurrences) {
+    }
+
+    record Document(long id, String name, String description, Long requestId, Long version,
+                    String normalizedName, String normalizedDescription) {
+
+        static Document of(Item item) {
+            return new Document(item.getId(), item.getName(), item.getDescription(),
+                    item.getRequest() != null ? item.getRequest().getId() : null, item.getVersion(),
+                    normalize(item.getName()), normalize(item.getDescription()));
+        }
+
+        boolean contains(String query) {
+            return normalizedName.contains(query) || normalizedDescription.contains(query);
+        }
+
+        int occurrencesInName(String query) {
+            return occurrences(normalizedName, query);
+        }
+
+        int occurrencesInDescription(String query) {
+            return occurrences(normalizedDescription, query);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(normalizedName, grams);
+            addGrams(normalizedDescription, grams);
+            return grams;
+        }
+
+        ItemDto toDto() {
+            return ItemDto.builder()
+                    .id(id)
+                    .name(name)
+                    .description(description)
+                    .available(true)
+                    .requestId(requestId)
+                    .version(version)
+                    .build();
+        }
+    }
+}
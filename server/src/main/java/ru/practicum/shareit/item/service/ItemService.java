@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchPageDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentDto;
 
 import java.util.List;
@@ -13,13 +14,23 @@ public interface ItemService {
 
     void deleteByUserIdAndItemId(long userId, long itemId);
 
-    ItemDto updateItem(long userId, long itemId, ItemDto itemDto);
+    ItemDto updateItem(long userId, long itemId, ItemDto itemDto, Long expectedVersion);
 
     ItemWithCommentDto getItem(long userId, long itemId);
 
+    /**
+     * @return версия вещи, если ответ getItem этому пользователю определяется ею, иначе null (ответ владельцу)
+     */
+    Long getItemVersion(long userId, long itemId);
+
+    /**
+     * @return имена авторов комментариев к вещи, в произвольном порядке
+     */
+    List<String> getCommentAuthorNames(long itemId);
+
     List<ItemDto> getAll();
 
-    List<ItemDto> searchByText(String text, long userId);
+    ItemSearchPageDto searchByText(String text, long userId, int from, int size);
 
     CommentDto createComment(Long userId, Long itemId, CommentDto commentDto);
 }
\ No newline at end of file
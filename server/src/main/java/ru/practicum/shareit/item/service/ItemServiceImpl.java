@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
@@ -18,9 +19,10 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentDto;
 import ru.practicum.shareit.item.dto.CommentMapper;
 import ru.practicum.shareit.item.dto.ItemMapper;
-import ru.practicum.shareit.request.dao.ItemRequestRepository;
+import ru.practicum.shareit.item.dto.ItemSearchPageDto;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.user.User;
-import ru.practicum.shareit.user.dao.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -29,11 +31,13 @@ import java.util.*;
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final Set<BookingStatus> ACTIVE_STATUSES = EnumSet.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+
     private final ItemRepository itemRepository;
-    private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
-    private final ItemRequestRepository itemRequestRepository;
+    private final EntityLookup entityLookup;
+    private final ItemSearchIndex itemSearchIndex;
 
     @Override
     public List<ItemWithCommentDto> getItemsByUserId(long userId) {
@@ -41,10 +45,9 @@ public class ItemServiceImpl implements ItemService {
         if (items.isEmpty()) {
             return Collections.emptyList();
         }
-        Map<Long, ItemWithCommentDto> itemsWithIds = new HashMap<>();
+        Map<Long, ItemWithCommentDto> itemsWithIds = new LinkedHashMap<>();
         items.forEach(item -> itemsWithIds.put(item.getId(), ItemMapper.mapToItemWitchCommentDto(item)));
         addBookingDatesToItems(itemsWithIds);
-        addBookingDatesToItems(itemsWithIds);
         return new ArrayList<>(itemsWithIds.values());
     }
 
@@ -55,28 +58,35 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getName() == null || itemDto.getName().isBlank()) throw new ValidationException("ERROR: Name is null");
         if (itemDto.getDescription() == null) throw new ValidationException("ERROR: Description is null");
 
-        if (itemDto.getRequestId() != null && !itemRequestRepository.existsById(itemDto.getRequestId())) {
-            throw new NotFoundException("Запрос с id = " + itemDto.getRequestId() + " не найден");
+        if (itemDto.getRequestId() != null) {
+            entityLookup.request(itemDto.getRequestId());
         }
-
-        User owner = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User не найден по id = " + userId));
+        User owner = entityLookup.user(userId);
 
         Item item = itemRepository.save(ItemMapper.mapToItem(itemDto, owner));
+        itemSearchIndex.onItemSaved(item);
         return ItemMapper.mapToItemDto(item);
     }
 
     @Override
     @Transactional
     public void deleteByUserIdAndItemId(long userId, long itemId) {
-        itemRepository.deleteByIdAndOwnerId(userId, itemId);
+        if (itemRepository.deleteByIdAndOwnerId(itemId, userId) > 0) {
+            itemSearchIndex.onItemDeleted(itemId);
+        }
     }
 
     @Override
     @Transactional
-    public ItemDto updateItem(long userId, long itemId, ItemDto itemDto) {
-        Item item = itemRepository.findByIdAndOwnerId(itemId, userId)
-                .orElseThrow(() -> new NotFoundException("Item не был найден"));
+    public ItemDto updateItem(long userId, long itemId, ItemDto itemDto, Long expectedVersion) {
+        // вещь обычно берётся из кэша второго уровня без запроса к базе: версию проверяет сам UPDATE
+        Item item = entityLookup.item(itemId);
+        if (item.getOwner().getId() != userId) {
+            throw new NotFoundException("Item не был найден");
+        }
+        if (expectedVersion != null && !expectedVersion.equals(item.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Item.class, itemId);
+        }
         boolean isHasName = itemDto.getName() != null;
         boolean isHasDescription = itemDto.getDescription() != null;
         boolean isHasAvailable = itemDto.getAvailable() != null;
@@ -84,7 +94,8 @@ public class ItemServiceImpl implements ItemService {
         if (isHasAvailable) item.setAvailable(itemDto.getAvailable());
         if (isHasName) item.setName(itemDto.getName());
         if (isHasDescription) item.setDescription(itemDto.getDescription());
-        item = itemRepository.save(item);
+        item = itemRepository.saveAndFlush(item);
+        itemSearchIndex.onItemSaved(item);
         return ItemMapper.mapToItemDto(item);
     }
 
@@ -96,12 +107,24 @@ public class ItemServiceImpl implements ItemService {
 
         long ownerId = item.getOwner().getId();
         if (ownerId == userId) {
-            addBookingsToItem(itemWithCommentDto);
+            addBookingDatesToItems(Map.of(itemWithCommentDto.getId(), itemWithCommentDto));
         }
         addCommentsToItem(itemWithCommentDto);
         return itemWithCommentDto;
     }
 
+    @Override
+    public Long getItemVersion(long userId, long itemId) {
+        // вещь обычно берётся из кэша второго уровня без запроса к базе
+        Item item = entityLookup.item(itemId);
+        return item.getOwner().getId() == userId ? null : item.getVersion();
+    }
+
+    @Override
+    public List<String> getCommentAuthorNames(long itemId) {
+        return commentRepository.findAuthorNamesByItemId(itemId);
+    }
+
     @Override
     public List<ItemDto> getAll() {
         List<Item> items = itemRepository.findAll();
@@ -109,21 +132,23 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public List<ItemDto> searchByText(String text, long userId) {
+    public ItemSearchPageDto searchByText(String text, long userId, int from, int size) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации: from = " + from + ", size = " + size);
+        }
         if (text.isBlank()) {
-            return Collections.emptyList();
+            return ItemSearchPageDto.builder().items(Collections.emptyList()).build();
         }
-        List<Item> items = itemRepository.getListILikeByText(text.toLowerCase());
-        return ItemMapper.mapToItemDto(items);
+        return itemSearchIndex.search(text, from, size);
     }
 
     @Override
     @Transactional
     public CommentDto createComment(Long userId, Long itemId, CommentDto commentDto) {
-        User owner = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User не найден по id = " + userId));
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new NotFoundException("Item не найден по id = " + itemId));
+        User owner = entityLookup.user(userId);
+        // комментарий входит в ответ о вещи, поэтому меняет её версию, а с ней и ETag
+        Item item = itemRepository.findByIdIncrementingVersion(itemId)
+                .orElseThrow(() -> new NotFoundException(String.format("Item с id = %d не найден", itemId)));
 
         List<Booking> bookingsItemByUser = bookingRepository
                 .findByBookerIdAndItemIdAndStatusAndStartIsBefore(userId, itemId, BookingStatus.APPROVED, LocalDateTime.now());
@@ -133,61 +158,32 @@ public class ItemServiceImpl implements ItemService {
         }
         if (commentDto.getText().isBlank()) throw new IllegalArgumentException("Text не может быть пустым");
         Comment comment = CommentMapper.mapToComment(commentDto, owner, item);
-
-        return CommentMapper.mapToCommentDto(commentRepository.save(comment));
+        CommentDto result = CommentMapper.mapToCommentDto(commentRepository.save(comment));
+        itemSearchIndex.onItemSaved(item);
+        return result;
     }
 
     private void addBookingDatesToItems(Map<Long, ItemWithCommentDto> itemsWithId) {
-        Map<Long, List<Booking>> bookings = new HashMap<>();
-        List<Long> itemIds = new ArrayList<>(itemsWithId.keySet());
-
-        List<Booking> bookingsList = bookingRepository.findByItemIdInAndStatusOrStatusOrderByStartAsc(itemIds,
-                BookingStatus.APPROVED, BookingStatus.WAITING);
-
-        bookingsList.forEach(booking -> bookings.computeIfAbsent(booking.getItem().getId(),
-                key -> new ArrayList<>()).add(booking));
-
-        bookings.forEach((key, value) -> lastNextBooking(value, itemsWithId.get(key)));
-    }
-
-    private void addBookingsToItem(ItemWithCommentDto itemDto) {
-        List<Booking> bookings = bookingRepository.findByItemIdAndStatusOrStatusOrderByStartAsc(itemDto.getId(),
-                BookingStatus.APPROVED, BookingStatus.WAITING);
-        if (bookings.isEmpty()) {
-            return;
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = bookingRepository.findLastAndNextByItemIdIn(itemsWithId.keySet(),
+                ACTIVE_STATUSES, now);
+
+        // бронирования отсортированы по (start, id): последним побеждает самое позднее прошедшее,
+        // первым — самое раннее будущее
+        for (Booking booking : bookings) {
+            ItemWithCommentDto itemDto = itemsWithId.get(booking.getItem().getId());
+            if (!booking.getStart().isAfter(now)) {
+                itemDto.setLastBooking(BookingMapper.mapToBookingDtoItem(booking));
+            } else if (itemDto.getNextBooking() == null) {
+                itemDto.setNextBooking(BookingMapper.mapToBookingDtoItem(booking));
+            }
         }
-        lastNextBooking(bookings, itemDto);
     }
 
     private void addCommentsToItem(ItemWithCommentDto itemDto) {
-        commentRepository.findAllByItemIdOrderByCreatedDesc(itemDto.getId())
-                .forEach(comment -> itemDto.addComment(CommentMapper.mapToCommentDto(comment)));
-    }
-
-    private void lastNextBooking(List<Booking> bookings, ItemWithCommentDto itemDto) {
-
-        Booking lastBooking;
-        Booking nextBooking = null;
-        LocalDateTime now = LocalDateTime.now();
-
-
-        if (bookings.get(0).getStart().isAfter(now)) {
-            itemDto.setNextBooking(BookingMapper.mapToBookingDtoItem(bookings.get(0)));
-            return;
-        } else {
-            lastBooking = bookings.get(0);
-        }
-
-        for (int i = 1; i < bookings.size(); i++) {
-            if (bookings.get(i).getStart().isAfter(now)) {
-                lastBooking = bookings.get(i - 1);
-                nextBooking = bookings.get(i);
-                break;
-            }
-        }
-        itemDto.setLastBooking(BookingMapper.mapToBookingDtoItem(lastBooking));
-        if (nextBooking != null) {
-            itemDto.setNextBooking(BookingMapper.mapToBookingDtoItem(nextBooking));
-        }
+        List<Comment> comments = commentRepository.findAllByItemIdOrderByCreatedDesc(itemDto.getId());
+        // авторы загружаются одним запросом, а не по одному при обращении к каждому комментарию
+        entityLookup.users(comments.stream().map(comment -> comment.getAuthor().getId()).toList());
+        comments.forEach(comment -> itemDto.addComment(CommentMapper.mapToCommentDto(comment)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package ru.practicum.shareit.lookup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.error.NotFoundException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dao.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dao.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Поиск пользователей, вещей и запросов по id для сервисов. Найденное запоминается до конца текущей транзакции,
+ * то есть на один вызов сервиса: повторная проверка той же сущности не идёт в базу, а несколько id
+ * загружаются одним IN-запросом. Без транзакции каждый вызов обращается к репозиторию.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityLookup {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+
+    public User user(long userId) {
+        return one(User.class, userId, userRepository::findById, "User с id = %d не найден");
+    }
+
+    public Map<Long, User> users(Collection<Long> userIds) {
+        return all(User.class, userIds, userRepository::findAllById, User::getId);
+    }
+
+    public Item item(long itemId) {
+        return one(Item.class, itemId, itemRepository::findById, "Item с id = %d не найден");
+    }
+
+    public Map<Long, Item> items(Collection<Long> itemIds) {
+        return all(Item.class, itemIds, itemRepository::findAllById, Item::getId);
+    }
+
+    public ItemRequest request(long requestId) {
+        return one(ItemRequest.class, requestId, itemRequestRepository::findById, "Request с id = %d не найден");
+    }
+
+    private <T> T one(Class<T> type, long id, Function<Long, Optional<T>> loader, String notFound) {
+        Map<Key, Object> memo = memo();
+        Key key = new Key(type, id);
+        Object cached = memo != null ? memo.get(key) : null;
+        if (cached != null) {
+            return type.cast(cached);
+        }
+        T found = loader.apply(id).orElseThrow(() -> new NotFoundException(String.format(notFound, id)));
+        if (memo != null) {
+            memo.put(key, found);
+        }
+        return found;
+    }
+
+    /**
+     * @return найденные сущности по id в порядке запроса; отсутствующих в базе id в результате нет
+     */
+    private <T> Map<Long, T> all(Class<T> type, Collection<Long> ids, Function<List<Long>, List<T>> loader,
+                                 Function<T, Long> idOf) {
+        Map<Key, Object> memo = memo();
+        Map<Long, T> result = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Object cached = memo != null ? memo.get(new Key(type, id)) : null;
+            if (cached != null) {
+                result.put(id, type.cast(cached));
+            } else if (!result.containsKey(id)) {
+                result.put(id, null);
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (T found : loader.apply(missing)) {
+                result.put(idOf.apply(found), found);
+                if (memo != null) {
+                    memo.put(new Key(type, idOf.apply(found)), found);
+                }
+            }
+        }
+        result.values().removeIf(entity -> entity == null);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Key, Object> memo() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Map<Key, Object> memo = (Map<Key, Object>) TransactionSynchronizationManager.getResource(this);
+        if (memo == null) {
+            Map<Key, Object> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(EntityLookup.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(EntityLookup.this, created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EntityLookup.this);
+                }
+            });
+            memo = created;
+        }
+        return memo;
+    }
+
+    private record Key(Class<?> type, long id) {
+    }
+}
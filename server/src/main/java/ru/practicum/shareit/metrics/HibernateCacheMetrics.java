@@ -0,0 +1,66 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Попадания и промахи второго уровня кэша Hibernate по регионам (сущности и кэш запросов) для /actuator/metrics:
+ * hibernate.cache.requests{region, result=hit|miss}, hibernate.cache.puts{region}, hibernate.cache.hit.ratio{region}.
+ */
+@Component
+public class HibernateCacheMetrics implements MeterBinder {
+    private final Statistics statistics;
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            if (statistics.getCacheRegionStatistics(region) != null) {
+                bind(registry, region);
+            }
+        }
+    }
+
+    /**
+     * Объект статистики региона пересоздаётся после Statistics.clear(), поэтому значения читаются по имени региона.
+     */
+    private void bind(MeterRegistry registry, String region) {
+        ToDoubleFunction<Statistics> hits = stats -> count(stats, region, CacheRegionStatistics::getHitCount);
+        ToDoubleFunction<Statistics> misses = stats -> count(stats, region, CacheRegionStatistics::getMissCount);
+        FunctionCounter.builder("hibernate.cache.requests", statistics, hits)
+                .tags("region", region, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("hibernate.cache.requests", statistics, misses)
+                .tags("region", region, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("hibernate.cache.puts", statistics,
+                        stats -> count(stats, region, CacheRegionStatistics::getPutCount))
+                .tags("region", region)
+                .register(registry);
+        Gauge.builder("hibernate.cache.hit.ratio", statistics, stats -> {
+                    double hit = hits.applyAsDouble(stats);
+                    double total = hit + misses.applyAsDouble(stats);
+                    return total == 0 ? 0 : hit / total;
+                })
+                .tags("region", region)
+                .register(registry);
+    }
+
+    private static double count(Statistics statistics, String region, ToLongFunction<CacheRegionStatistics> counter) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        return regionStatistics == null ? 0 : counter.applyAsLong(regionStatistics);
+    }
+}
@@ -6,18 +6,17 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.error.NotFoundException;
 import ru.practicum.shareit.error.ValidationException;
 import ru.practicum.shareit.item.dao.ItemRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.dao.ItemRequestRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestItemsDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
 import ru.practicum.shareit.user.User;
-import ru.practicum.shareit.user.dao.UserRepository;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -32,8 +31,8 @@ import java.util.stream.Collectors;
 public class ItemRequestServiceImpl implements ItemRequestService {
 
     private final ItemRequestRepository itemRequestRepository;
-    private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final EntityLookup entityLookup;
 
     @Override
     @Transactional
@@ -42,7 +41,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         if (itemRequestDto.getDescription().isBlank()) {
             throw new ValidationException("Текст описания не может быть пустой");
         }
-        User user = findUser(userId);
+        User user = entityLookup.user(userId);
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDto);
         itemRequest.setRequestor(user);
         itemRequest = itemRequestRepository.save(itemRequest);
@@ -52,7 +51,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public List<ItemRequestItemsDto> getUserItemsReq(Long userId) {
         log.info("Попытка получение списка ItemRequest пользователя с userId = {}", userId);
-        findUser(userId);
+        entityLookup.user(userId);
         List<ItemRequestItemsDto> itemRequestDtos = itemRequestRepository.findByRequestorId(userId)
                 .stream().map(ItemRequestMapper::mapToItemRequestItemsDto).collect(Collectors.toList());
         addItems(itemRequestDtos);
@@ -62,7 +61,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public List<ItemRequestItemsDto> getItems(Long userId, Integer from, Integer size) {
         log.info("Попытка получения списка ItemRequest с userId = {}, from = {}, size = {}", userId, from, size);
-        findUser(userId);
+        entityLookup.user(userId);
         PageRequest page = PageRequest.of(from / size, size, Sort.Direction.DESC, "created");
         List<ItemRequestItemsDto> itemRequestDtos = itemRequestRepository.findByRequestorIdNot(userId, page)
                 .map(ItemRequestMapper::mapToItemRequestItemsDto).getContent();
@@ -73,9 +72,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public ItemRequestItemsDto getItem(Long userId, Long requestId) {
         log.info("Попытка получения ItemRequest с userId = {}, requestId = {}", userId, requestId);
-        findUser(userId);
-        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
-                .orElseThrow(() -> new NotFoundException(String.format("Request с id %d не найден", requestId)));
+        entityLookup.user(userId);
+        ItemRequest itemRequest = entityLookup.request(requestId);
         ItemRequestItemsDto requestDto = ItemRequestMapper.mapToItemRequestItemsDto(itemRequest);
         List<ItemDto> items = itemRepository.findByRequestId(requestId).stream()
                 .map(ItemMapper::mapToItemDto).collect(Collectors.toList());
@@ -83,11 +81,6 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return requestDto;
     }
 
-    private User findUser(Long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format("User с id %d не найден", userId)));
-    }
-
     private void addItems(List<ItemRequestItemsDto> itemRequestDtos) {
         List<Long> requestIds = itemRequestDtos.stream().map(ItemRequestItemsDto::getId).collect(Collectors.toList());
         List<ItemDto> itemDtos = itemRepository.findByRequestIdIn(requestIds).stream()
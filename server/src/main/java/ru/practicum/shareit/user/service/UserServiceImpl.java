@@ -1,6 +1,7 @@
 package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.error.EmailException;
 import ru.practicum.shareit.error.NotFoundException;
@@ -8,6 +9,7 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.index.EmailBloomFilter;
 
 import java.util.List;
 
@@ -16,6 +18,7 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final EmailBloomFilter emailBloomFilter;
 
     @Override
     public List<UserDto> getList() {
@@ -25,7 +28,8 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDto create(UserDto userDto) {
         repeatCheck(userDto);
-        return UserMapper.mapToUserDto(userRepository.save(UserMapper.mapToUser(userDto)));
+        User user = saveUniqueEmail(UserMapper.mapToUser(userDto), userDto);
+        return UserMapper.mapToUserDto(user);
     }
 
     @Override
@@ -47,28 +51,30 @@ public class UserServiceImpl implements UserService {
         boolean isHasName = userDto.getName() != null;
         boolean isHasEmail = userDto.getEmail() != null;
 
+        if (isHasEmail && !userDto.getEmail().equals(user.getEmail())) repeatCheck(userDto);
         if (isHasName) user.setName(userDto.getName());
         if (isHasEmail) user.setEmail(userDto.getEmail());
 
-        return UserMapper.mapToUserDto(userRepository.save(user));
+        return UserMapper.mapToUserDto(saveUniqueEmail(user, userDto));
     }
 
     private void repeatCheck(UserDto userDto) {
-        List<UserDto> userDtos = UserMapper.mapToUserDto(userRepository.findAll());
-        userDtos.forEach(user -> {
-            if (user.getEmail().equals(userDto.getEmail())) {
-                throw new EmailException(String.format("Пользователь %s уже существует", userDto));
-            }
-        });
+        String email = userDto.getEmail();
+        if (email != null && emailBloomFilter.mightContain(email) && userRepository.existsByEmail(email)) {
+            throw new EmailException(String.format("Пользователь %s уже существует", userDto));
+        }
     }
 
-    private void repeatCheckWithId(UserDto userDto, long userId) {
-        List<UserDto> userDtos = UserMapper.mapToUserDto(userRepository.findAll());
-        userDtos.forEach(user -> {
-            if (user.getEmail().equals(userDto.getEmail())
-                    && user.getId() != userId) {
-                throw new EmailException(String.format("Пользователь %s уже существует", userDto));
-            }
-        });
+    private User saveUniqueEmail(User user, UserDto userDto) {
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new EmailException(String.format("Пользователь %s уже существует", userDto));
+        }
+        if (saved.getEmail() != null) {
+            emailBloomFilter.put(saved.getEmail());
+        }
+        return saved;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package ru.practicum.shareit.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.practicum.shareit.error.ErrorResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Заголовок Idempotency-Key на создании бронирований, вещей и запросов. Клиенты повторяют POST по таймауту,
+ * и без ключа каждый повтор создавал бы ещё одну запись. Повтор с ключом получает сохранённый ответ первого
+ * запроса без вызова сервиса, а пока первый запрос выполняется — 409. Сохраняются только успешные ответы:
+ * после ошибки запрос с тем же ключом выполняется заново. Ключ принадлежит пользователю
+ * и привязан к методу и пути запроса (другой запрос — 400) и к его телу (другое тело — 422).
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String REPLAYED = "Idempotent-Replayed";
+    private static final String USER_ID = "X-Sharer-User-Id";
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final IdempotencyKeyStore store;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(IdempotencyKeyStore store, ObjectMapper objectMapper) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long userId = userId(request);
+        if (userId == null) {
+            // без пользователя запрос отклонит контроллер
+            chain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(IDEMPOTENCY_KEY).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "Ключ идемпотентности должен содержать от 1 до " + MAX_KEY_LENGTH + " символов");
+            return;
+        }
+        String target = request.getMethod() + " " + request.getRequestURI();
+        BufferedBodyRequest buffered = new BufferedBodyRequest(request);
+        String hash = hash(buffered.body);
+
+        IdempotencyKeyStore.StoredResponse existing = store.find(userId, key).orElse(null);
+        if (existing == null || (existing.isPending() && matches(existing, target, hash))) {
+            // занятый ключ перехватывается, только если первый запрос не завершился за lease
+            Optional<IdempotencyKeyStore.Reservation> reservation = store.reserve(userId, key, target, hash);
+            if (reservation.isPresent()) {
+                execute(buffered, response, chain, reservation.get(), target, hash);
+                return;
+            }
+            existing = store.find(userId, key).orElse(null);
+        }
+        if (existing != null && !existing.request().equals(target)) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "Ключ идемпотентности уже использован для запроса " + existing.request());
+        } else if (existing != null && !matches(existing, target, hash)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Ключ идемпотентности уже использован для запроса с другим телом");
+        } else if (existing == null || existing.isPending()) {
+            writeError(response, HttpStatus.CONFLICT, "Запрос с этим ключом идемпотентности ещё выполняется");
+        } else {
+            replay(response, existing);
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         IdempotencyKeyStore.Reservation reservation, String target, String hash)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, wrapper);
+            if (HttpStatus.valueOf(wrapper.getStatus()).is2xxSuccessful()) {
+                store.complete(reservation, new IdempotencyKeyStore.StoredResponse(target, hash, wrapper.getStatus(),
+                        wrapper.getContentType(), new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8)));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                store.release(reservation);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyKeyStore.StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body() != null) {
+            byte[] body = stored.body().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message));
+    }
+
+    static String hash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean matches(IdempotencyKeyStore.StoredResponse stored, String target, String hash) {
+        return stored.request().equals(target) && (stored.requestHash() == null || stored.requestHash().equals(hash));
+    }
+
+    private static Long userId(HttpServletRequest request) {
+        try {
+            return Long.valueOf(request.getHeader(USER_ID));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Запрос с телом, прочитанным заранее: хэш тела нужен до того, как его прочитает контроллер.
+     */
+    static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * Тело уже прочитано целиком, поэтому данные доступны сразу: слушатель вызывается на месте.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset()));
+        }
+
+        private Charset charset() {
+            String encoding = getCharacterEncoding();
+            return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        }
+    }
+}
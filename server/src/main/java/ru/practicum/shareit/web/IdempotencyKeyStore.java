@@ -0,0 +1,176 @@
+package ru.practicum.shareit.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ключи идемпотентности и сохранённые ответы на них. Ключ занимается до выполнения запроса (ответа ещё нет),
+ * поэтому повтор, пришедший во время выполнения, видит занятый ключ и не выполняется второй раз.
+ * Занятие действует lease: если за это время ответ не сохранён (экземпляр упал посреди запроса), ключ
+ * занимает следующий повтор, а завершение прежнего запроса уже ничего не меняет.
+ * Завершённые ответы дублируются в памяти: повтор обычно приходит через секунды и не доходит до БД.
+ * Ключи старше ttl не учитываются и периодически удаляются.
+ */
+@Slf4j
+@Repository
+public class IdempotencyKeyStore {
+    private static final String SELECT = "SELECT request, request_hash, status, content_type, body " +
+            "FROM idempotency_keys WHERE user_id = ? AND idempotency_key = ? AND created > ?";
+    private static final String INSERT = "INSERT INTO idempotency_keys " +
+            "(user_id, idempotency_key, request, request_hash, created, reserved_at) VALUES (?, ?, ?, ?, ?, ?)";
+    // created тоже обновляется: иначе перехваченный ключ старше ttl не виден find и удаляется как устаревший
+    private static final String TAKE_OVER = "UPDATE idempotency_keys " +
+            "SET request = ?, request_hash = ?, created = ?, reserved_at = ? " +
+            "WHERE user_id = ? AND idempotency_key = ? AND status IS NULL " +
+            "AND (reserved_at IS NULL OR reserved_at <= ?)";
+    private static final String UPDATE = "UPDATE idempotency_keys SET status = ?, content_type = ?, body = ? " +
+            "WHERE user_id = ? AND idempotency_key = ? AND reserved_at = ?";
+    private static final String DELETE = "DELETE FROM idempotency_keys WHERE user_id = ? AND idempotency_key = ?";
+    private static final String DELETE_RESERVED = DELETE + " AND reserved_at = ?";
+    private static final String DELETE_EXPIRED_KEY = DELETE + " AND created <= ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM idempotency_keys WHERE created <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Cache<Key, StoredResponse> completed;
+
+    public IdempotencyKeyStore(JdbcTemplate jdbcTemplate,
+                               @Value("${shareit.idempotency.ttl:24h}") Duration ttl,
+                               @Value("${shareit.idempotency.lease:1m}") Duration lease,
+                               @Value("${shareit.idempotency.cache-size:10000}") long cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.completed = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    public Optional<StoredResponse> find(long userId, String key) {
+        StoredResponse cached = completed.getIfPresent(new Key(userId, key));
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        List<StoredResponse> found = jdbcTemplate.query(SELECT, (rs, rowNum) -> new StoredResponse(
+                        rs.getString("request"),
+                        rs.getString("request_hash"),
+                        (Integer) rs.getObject("status"),
+                        rs.getString("content_type"),
+                        rs.getString("body")),
+                userId, key, expiredBefore());
+        found.stream()
+                .filter(response -> !response.isPending())
+                .forEach(response -> completed.put(new Key(userId, key), response));
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Занимает ключ под запрос: свободный, оставшийся от запроса старше ttl или занятый запросом,
+     * который не завершился за lease.
+     *
+     * @param requestHash хэш тела запроса
+     * @return занятие, по которому запрос сохранит ответ или освободит ключ; пусто, если ключ занят другим
+     * запросом, выполненным или выполняющимся
+     */
+    public Optional<Reservation> reserve(long userId, String key, String request, String requestHash) {
+        Reservation reservation = new Reservation(userId, key, now());
+        try {
+            insert(reservation, request, requestHash);
+            return Optional.of(reservation);
+        } catch (DuplicateKeyException e) {
+            if (jdbcTemplate.update(TAKE_OVER, request, requestHash, reservation.reservedAt(),
+                    reservation.reservedAt(), userId, key,
+                    Timestamp.valueOf(reservation.reservedAt().toLocalDateTime().minus(lease))) > 0) {
+                log.warn("Ключ идемпотентности {} пользователя {} не завершён за {}, запрос выполняется заново",
+                        key, userId, lease);
+                return Optional.of(reservation);
+            }
+            // ключ мог остаться от запроса старше ttl, который ещё не удалён
+            if (jdbcTemplate.update(DELETE_EXPIRED_KEY, userId, key, expiredBefore()) == 0) {
+                return Optional.empty();
+            }
+        }
+        try {
+            insert(reservation, request, requestHash);
+            return Optional.of(reservation);
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Сохраняет ответ, если ключ всё ещё занят этим запросом, а не перехвачен повтором после lease.
+     */
+    public void complete(Reservation reservation, StoredResponse response) {
+        if (jdbcTemplate.update(UPDATE, response.status(), response.contentType(), response.body(),
+                reservation.userId(), reservation.key(), reservation.reservedAt()) > 0) {
+            completed.put(new Key(reservation.userId(), reservation.key()), response);
+        }
+    }
+
+    /**
+     * Освобождает ключ запроса, завершившегося ошибкой: повтор с тем же ключом выполнится заново.
+     */
+    public void release(Reservation reservation) {
+        jdbcTemplate.update(DELETE_RESERVED, reservation.userId(), reservation.key(), reservation.reservedAt());
+        completed.invalidate(new Key(reservation.userId(), reservation.key()));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.idempotency.cleanup-interval:PT10M}",
+            initialDelayString = "${shareit.idempotency.cleanup-interval:PT10M}")
+    public void deleteExpired() {
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED, expiredBefore());
+        if (deleted > 0) {
+            log.info("Удалено {} устаревших ключей идемпотентности", deleted);
+        }
+    }
+
+    private void insert(Reservation reservation, String request, String requestHash) {
+        jdbcTemplate.update(INSERT, reservation.userId(), reservation.key(), request, requestHash,
+                reservation.reservedAt(), reservation.reservedAt());
+    }
+
+    private static Timestamp now() {
+        // время занятия сравнивается на равенство: точность не выше, чем хранит столбец
+        return Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+    }
+
+    private Timestamp expiredBefore() {
+        return Timestamp.valueOf(LocalDateTime.now().minus(ttl));
+    }
+
+    /**
+     * Ответ на запрос с ключом; без статуса, пока запрос выполняется.
+     *
+     * @param request     метод и путь запроса, занявшего ключ
+     * @param requestHash хэш его тела; нет у ключей, занятых до появления проверки
+     */
+    public record StoredResponse(String request, @Nullable String requestHash, @Nullable Integer status,
+                                 @Nullable String contentType, @Nullable String body) {
+        public boolean isPending() {
+            return status == null;
+        }
+    }
+
+    public record Reservation(long userId, String key, Timestamp reservedAt) {
+    }
+
+    private record Key(long userId, String key) {
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.web;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareit.error.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Версия записи как валидатор. GET версионируемого ресурса отдаёт слабый ETag W/"&lt;версия&gt;", а если ответ
+ * зависит ещё от чего-то, кроме записи, — W/"&lt;версия&gt;-&lt;уточнение&gt;". Если версия с уточнениями
+ * определяет ответ целиком, ETag сильный: "&lt;версия&gt;-&lt;уточнение&gt;". If-Match принимает любой из них
+ * (сравнение слабое: важна только версия) или значение поля version из ответа, в кавычках или без.
+ * Без заголовка или с «*» версия не проверяется.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class IfMatch {
+    private static final String WEAK = "W/";
+    private static final char QUALIFIER = '-';
+
+    public static String etag(long version, Object... qualifiers) {
+        return WEAK + strongEtag(version, qualifiers);
+    }
+
+    public static String strongEtag(long version, Object... qualifiers) {
+        StringBuilder value = new StringBuilder().append(version);
+        for (Object qualifier : qualifiers) {
+            value.append(QUALIFIER).append(qualifier);
+        }
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Короткий хэш значений для уточнения ETag, когда ответ зависит от записей без версии.
+     */
+    public static String digest(List<String> values) {
+        byte[] joined = String.join("\0", values).getBytes(StandardCharsets.UTF_8);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(joined), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nullable
+    public static Long version(@Nullable String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith(WEAK)) {
+            value = value.substring(WEAK.length());
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        int qualifier = value.indexOf(QUALIFIER);
+        if (qualifier > 0) {
+            value = value.substring(0, qualifier);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("If-Match должен содержать версию записи: " + ifMatch);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Сильный ETag (хэш тела ответа) для GET отдельного пользователя и запроса: у этих записей нет версии.
+ * На If-None-Match с тем же ETag отвечает 304 без тела. Вещи и бронирования получают ETag из версии
+ * в контроллерах, см. {@link IfMatch}.
+ */
+@Component
+public class ResourceEtagFilter extends ShallowEtagHeaderFilter {
+    private static final Pattern RESOURCE = Pattern.compile("/(users|requests)/\\d+");
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !RESOURCE.matcher(request.getRequestURI()).matches();
+    }
+}
@@ -23,6 +23,7 @@ CREATE TABLE IF NOT EXISTS items
     available   boolean,
     owner_id    BIGINT,
     request_id  BIGINT,
+    version     BIGINT  NOT NULL DEFAULT 0,
     FOREIGN KEY (owner_id) REFERENCES users (id),
     FOREIGN KEY (request_id) REFERENCES item_requests (id)
 );
@@ -35,6 +36,8 @@ CREATE TABLE IF NOT EXISTS bookings
     item_id   BIGINT,
     booker_id BIGINT,
     status    varchar(32),
+    phase     VARCHAR(16) NOT NULL DEFAULT 'FUTURE',
+    version   BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (item_id) REFERENCES items (id),
     FOREIGN KEY (booker_id) REFERENCES users (id)
 );
@@ -48,4 +51,47 @@ CREATE TABLE IF NOT EXISTS comments
     created   TIMESTAMP WITHOUT TIME ZONE,
     FOREIGN KEY (item_id) REFERENCES items (id),
     FOREIGN KEY (author_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+-- версии для оптимистической блокировки в базах, созданных до их появления
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, "start" DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, "start" DESC, id DESC);
+
+-- фаза бронирования во времени; старые записи переводит из FUTURE в нужную фазу первый запуск BookingPhaseUpdater
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS phase VARCHAR(16) NOT NULL DEFAULT 'FUTURE';
+
+CREATE INDEX IF NOT EXISTS bookings_booker_phase_start_idx ON bookings (booker_id, phase, "start" DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_item_phase_start_idx ON bookings (item_id, phase, "start" DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id);
+
+CREATE INDEX IF NOT EXISTS bookings_phase_start_idx ON bookings (phase, "start");
+
+CREATE INDEX IF NOT EXISTS bookings_phase_end_idx ON bookings (phase, "end");
+
+CREATE TABLE IF NOT EXISTS idempotency_keys
+(
+    user_id         BIGINT                      NOT NULL,
+    idempotency_key VARCHAR(64)                 NOT NULL,
+    request         VARCHAR(255)                NOT NULL,
+    request_hash    VARCHAR(64),
+    status          INTEGER,
+    content_type    VARCHAR(128),
+    body            TEXT,
+    created         TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    reserved_at     TIMESTAMP WITHOUT TIME ZONE,
+    PRIMARY KEY (user_id, idempotency_key)
+);
+
+-- хэш тела и время занятия ключа в базах, созданных до их появления
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
+
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS reserved_at TIMESTAMP WITHOUT TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS idempotency_keys_created_idx ON idempotency_keys (created);
@@ -0,0 +1,226 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.Comment;
+import ru.practicum.shareit.item.dao.CommentRepository;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.lookup.EntityLookup;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.dao.UserRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class QueryCountTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    @Autowired
+    private EntityLookup entityLookup;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private long ownerId;
+    private long bookerId;
+    private long itemId;
+    private long requestId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser();
+        bookerId = createUser();
+        itemId = itemService.create(ownerId, ItemDto.builder()
+                .name("Дрель").description("Ударная").available(true).build()).getId();
+        requestId = itemRequestService.create(bookerId, ItemRequestDto.builder().description("Нужна дрель").build())
+                .getId();
+    }
+
+    @Test
+    void createBooking() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        String body = String.format("{\"itemId\": %d, \"start\": \"%s\", \"end\": \"%s\"}",
+                itemId, start, start.plusHours(1));
+
+        // вещь под блокировкой, пользователь, загрузка индекса интервалов вещи, вставка бронирования
+        assertEquals(4, countStatements(post("/bookings").header(USER_HEADER, bookerId)
+                .contentType(MediaType.APPLICATION_JSON).content(body)));
+    }
+
+    @Test
+    void createComment() throws Exception {
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(itemId)
+                .start(LocalDateTime.now().minusDays(2))
+                .end(LocalDateTime.now().minusDays(1))
+                .build();
+        long bookingId = bookingService.createBooking(bookerId, bookingDto).getId();
+        bookingService.confirmation(ownerId, true, bookingId, null);
+        long version = itemRepository.findById(itemId).orElseThrow().getVersion();
+
+        // пользователь, вещь под блокировкой, её версия, проверка бронирования, вставка комментария
+        assertEquals(5, countStatements(post("/items/{itemId}/comment", itemId).header(USER_HEADER, bookerId)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"text\": \"Отлично\"}")));
+        assertEquals(version + 1, itemRepository.findById(itemId).orElseThrow().getVersion());
+    }
+
+    @Test
+    void createItemForRequest() throws Exception {
+        String body = String.format("{\"name\": \"Дрель\", \"description\": \"Новая\", \"available\": true, " +
+                "\"requestId\": %d}", requestId);
+
+        // запрос, владелец, вставка вещи
+        assertEquals(3, countStatements(post("/items").header(USER_HEADER, ownerId)
+                .contentType(MediaType.APPLICATION_JSON).content(body)));
+    }
+
+    @Test
+    void getRequest() throws Exception {
+        // пользователь, запрос, вещи по запросу
+        assertEquals(3, countStatements(get("/requests/{requestId}", requestId).header(USER_HEADER, bookerId)));
+    }
+
+    @Test
+    void getItemLoadsCommentAuthorsInOneQuery() throws Exception {
+        addComments(1);
+        long oneAuthor = countStatements(get("/items/{itemId}", itemId).header(USER_HEADER, ownerId));
+
+        addComments(5);
+
+        // версия вещи (в работе — из кэша второго уровня), вещь с владельцем, последнее и следующее бронирования,
+        // комментарии, их авторы — при любом числе авторов
+        assertEquals(5, oneAuthor);
+        assertEquals(oneAuthor, countStatements(get("/items/{itemId}", itemId).header(USER_HEADER, ownerId)));
+    }
+
+    @Test
+    void getItemNotModifiedSkipsItemView() throws Exception {
+        addComments(3);
+        String etag = mvc.perform(get("/items/{itemId}", itemId).header(USER_HEADER, bookerId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mvc.perform(get("/items/{itemId}", itemId).header(USER_HEADER, bookerId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // версия вещи (без кэша второго уровня в тестах это запрос) и имена авторов комментариев
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getItemEtagChangesWhenCommentAuthorIsRenamed() throws Exception {
+        addComments(2);
+        long authorId = commentRepository.findAllByItemIdOrderByCreatedDesc(itemId).get(0).getAuthor().getId();
+        String etag = mvc.perform(get("/items/{itemId}", itemId).header(USER_HEADER, bookerId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        userService.updateUser(authorId, UserDto.builder().name("renamed").build());
+
+        mvc.perform(get("/items/{itemId}", itemId).header(USER_HEADER, bookerId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.comments[*].authorName", hasItem("renamed")));
+    }
+
+    @Test
+    void entityLookupMemoizesAndBatchesWithinTransaction() {
+        long secondId = createUser();
+        long thirdId = createUser();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            entityLookup.user(bookerId);
+            entityLookup.user(bookerId);
+            assertEquals(3, entityLookup.users(List.of(bookerId, secondId, thirdId)).size());
+            assertEquals(2, entityLookup.users(List.of(secondId, thirdId)).size());
+        });
+
+        // первый пользователь по ключу, двое остальных одним IN-запросом, повторы — из памяти транзакции
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private void addComments(int authors) {
+        for (int i = 0; i < authors; i++) {
+            Comment comment = new Comment();
+            comment.setText("Отлично");
+            comment.setItem(itemRepository.findById(itemId).orElseThrow());
+            comment.setAuthor(userRepository.findById(createUser()).orElseThrow());
+            commentRepository.save(comment);
+        }
+    }
+
+    private long countStatements(RequestBuilder request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long createUser() {
+        return userService.create(UserDto.builder()
+                .name("user")
+                .email(UUID.randomUUID() + "@mail.ru")
+                .build()).getId();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение обработки запросов Tomcat на пуле платформенных потоков (200 по умолчанию) и на виртуальных потоках
+ * при CONCURRENCY одновременных клиентах, каждый запрос которых блокируется на LATENCY (как на JDBC или HTTP).
+ * Запуск: mvn -P benchmark test -pl server
+ */
+@Tag("benchmark")
+class VirtualThreadsBenchmarkTest {
+    private static final int REQUESTS = 4000;
+    private static final int CONCURRENCY = 400;
+    private static final Duration LATENCY = Duration.ofMillis(50);
+
+    @Test
+    void virtualThreadsHandleBlockingRequestsFaster() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%d запросов по %d мс, %d одновременно: платформенные потоки %d мс, виртуальные %d мс%n",
+                REQUESTS, LATENCY.toMillis(), CONCURRENCY, platform.elapsed().toMillis(), virtual.elapsed().toMillis());
+        assertFalse(platform.virtualHandlers());
+        assertTrue(virtual.virtualHandlers());
+        assertTrue(virtual.elapsed().compareTo(platform.elapsed()) < 0);
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItServer.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx)
+                        .registerBean("blockingRoute", RouterFunction.class, VirtualThreadsBenchmarkTest::blockingRoute))
+                .run("--server.port=0", "--server.tomcat.accept-count=" + CONCURRENCY,
+                        "--spring.threads.virtual.enabled=" + virtualThreads);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/benchmark/blocking");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(uri).build();
+            client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            long start = System.nanoTime();
+            List<Future<Boolean>> clients = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                clients.add(executor.submit(() -> {
+                    boolean virtual = true;
+                    for (int j = 0; j < REQUESTS / CONCURRENCY; j++) {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        assertEquals(200, response.statusCode());
+                        virtual &= Boolean.parseBoolean(response.body());
+                    }
+                    return virtual;
+                }));
+            }
+            boolean virtualHandlers = true;
+            for (Future<Boolean> result : clients) {
+                virtualHandlers &= result.get();
+            }
+            return new Result(Duration.ofNanos(System.nanoTime() - start), virtualHandlers);
+        }
+    }
+
+    private static RouterFunction<ServerResponse> blockingRoute() {
+        return RouterFunctions.route()
+                .GET("/benchmark/blocking", request -> {
+                    Thread.sleep(LATENCY);
+                    return ServerResponse.ok().body(String.valueOf(Thread.currentThread().isVirtual()));
+                })
+                .build();
+    }
+
+    private record Result(Duration elapsed, boolean virtualHandlers) {
+    }
+}
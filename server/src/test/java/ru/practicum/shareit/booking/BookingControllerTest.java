@@ -6,10 +6,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingConfirmationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
@@ -23,9 +27,11 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -69,7 +75,8 @@ class BookingControllerTest {
                 .item(itemDtoBuilder.build())
                 .start(now.plusMinutes(1))
                 .end(now.plusMinutes(2))
-                .status(BookingStatus.WAITING);
+                .status(BookingStatus.WAITING)
+                .version(3L);
     }
 
     @Test
@@ -90,6 +97,34 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(bookingOutDto.getStatus().toString()), String.class));
     }
 
+    @Test
+    void testCreateBatch() throws Exception {
+        BookingDto bookingInDto = builderIn.build();
+        bookingOutDto = builderOut.build();
+        String json = mapper.writeValueAsString(List.of(bookingInDto, bookingInDto));
+        when(bookingService.createBookings(1L, List.of(bookingInDto, bookingInDto)))
+                .thenReturn(List.of(bookingOutDto, bookingOutDto));
+        mvc.perform(post(URL + "/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].id", is(bookingOutDto.getId()), Long.class));
+    }
+
+    @Test
+    void testCreateBatchFailEndNull() throws Exception {
+        String json = mapper.writeValueAsString(List.of(builderIn.end(null).build()));
+        mvc.perform(post(URL + "/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testCreateFailItemIdNotFound() throws Exception {
         String error = String.format("Вещь с id %d не найдена", 99);
@@ -124,10 +159,27 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.error", containsString(error), String.class));
     }
 
+    @Test
+    void testConfirmAll() throws Exception {
+        when(bookingService.confirmAll(1L, true, List.of(1L, 2L))).thenReturn(List.of(
+                BookingConfirmationDto.builder().bookingId(1L).status(BookingStatus.APPROVED).build(),
+                BookingConfirmationDto.builder().bookingId(2L).error("Время для бронирования недоступно").build()));
+        mvc.perform(patch(URL + "/approve")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("approved", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(1L, 2L))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].error", is("Время для бронирования недоступно")));
+    }
+
     @Test
     void testConfirmationStandard() throws Exception {
         bookingOutDto = builderOut.status(BookingStatus.APPROVED).build();
-        when(bookingService.confirmation(1L, true, 1L)).thenReturn(bookingOutDto);
+        when(bookingService.confirmation(1L, true, 1L, null)).thenReturn(bookingOutDto);
         mvc.perform(patch(URL + "/1")
                         .header("X-Sharer-User-Id", 1)
                         .param("approved", "true"))
@@ -144,7 +196,7 @@ class BookingControllerTest {
     @Test
     void testConfirmationStandardFalse() throws Exception {
         bookingOutDto = builderOut.status(BookingStatus.REJECTED).build();
-        when(bookingService.confirmation(1L, false, 1L)).thenReturn(bookingOutDto);
+        when(bookingService.confirmation(1L, false, 1L, null)).thenReturn(bookingOutDto);
         mvc.perform(patch(URL + "/1")
                         .header("X-Sharer-User-Id", 1)
                         .param("approved", "false"))
@@ -161,7 +213,7 @@ class BookingControllerTest {
     @Test
     void testConfirmationFailRepeate() throws Exception {
         String error = String.format("Бронирование с id %d уже отклонено", 1);
-        when(bookingService.confirmation(1L, false, 1L)).thenThrow(new ValidationException(error));
+        when(bookingService.confirmation(1L, false, 1L, null)).thenThrow(new ValidationException(error));
         mvc.perform(patch(URL + "/1")
                         .header("X-Sharer-User-Id", 1)
                         .param("approved", "false"))
@@ -170,6 +222,29 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.error", containsString(error), String.class));
     }
 
+    @Test
+    void testConfirmationStaleVersionConflict() throws Exception {
+        when(bookingService.confirmation(1L, true, 1L, 2L))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L));
+        mvc.perform(patch(URL + "/1")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .param("approved", "true"))
+                .andDo(print())
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", notNullValue()));
+    }
+
+    @Test
+    void testConfirmationMalformedIfMatch() throws Exception {
+        mvc.perform(patch(URL + "/1")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_MATCH, "W/\"abc\"")
+                        .param("approved", "true"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetOnlyOwnerOrBookerStandard() throws Exception {
         bookingOutDto = builderOut.build();
@@ -186,6 +261,39 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(bookingOutDto.getStatus().toString()), String.class));
     }
 
+    @Test
+    void testGetOnlyOwnerOrBookerEtagIsAcceptedByIfMatch() throws Exception {
+        bookingOutDto = builderOut.build();
+        when(bookingService.getOnlyOwnerOrBooker(1L, 1L)).thenReturn(bookingOutDto);
+        when(bookingService.confirmation(1L, true, 1L, 3L)).thenReturn(bookingOutDto);
+
+        String etag = mvc.perform(get(URL + "/1")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"3-0-")))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        mvc.perform(get(URL + "/1")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mvc.perform(patch(URL + "/1")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .param("approved", "true"))
+                .andExpect(status().isOk());
+
+        verify(bookingService).confirmation(1L, true, 1L, 3L);
+
+        bookingOutDto.getBooker().setName("renamed");
+        mvc.perform(get(URL + "/1")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
     @Test
     void testGetOnlyOwnerOrBookerFailUserId() throws Exception {
         String error = String.format("Пользователь с id %d не найден", -1);
@@ -210,8 +318,8 @@ class BookingControllerTest {
 
     @Test
     void testGetListOfUserBookerEmpty() throws Exception {
-        when(bookingService.getListOfUserBooker(1L, BookingState.REJECTED))
-                .thenReturn(Collections.emptyList());
+        when(bookingService.getListOfUserBooker(1L, BookingState.REJECTED, 0, 10, null))
+                .thenReturn(BookingPageDto.builder().bookings(Collections.emptyList()).build());
         mvc.perform(get(URL)
                         .header("X-Sharer-User-Id", 1)
                         .param("state", "REJECTED"))
@@ -223,8 +331,8 @@ class BookingControllerTest {
     @Test
     void testGetListOfUserBookerOneObject() throws Exception {
         bookingOutDto = builderOut.build();
-        when(bookingService.getListOfUserBooker(1L, BookingState.WAITING))
-                .thenReturn(List.of(bookingOutDto));
+        when(bookingService.getListOfUserBooker(1L, BookingState.WAITING, 0, 1, null))
+                .thenReturn(BookingPageDto.builder().bookings(List.of(bookingOutDto)).nextCursor("next").build());
         mvc.perform(get(URL)
                         .header("X-Sharer-User-Id", 1)
                         .param("state", "WAITING")
@@ -232,6 +340,7 @@ class BookingControllerTest {
                         .param("size", "1"))
                 .andDo(print())
                 .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.NEXT_CURSOR_HEADER, "next"))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(bookingOutDto.getId()), Long.class))
                 .andExpect(jsonPath("$[0].item.id", is(bookingOutDto.getItem().getId()), Long.class))
@@ -241,8 +350,8 @@ class BookingControllerTest {
 
     @Test
     void testGetListBookerOfOwnerItemsEmptyList() throws Exception {
-        when(bookingService.getListBookerOfOwnerItems(1L, BookingState.REJECTED))
-                .thenReturn(Collections.emptyList());
+        when(bookingService.getListBookerOfOwnerItems(1L, BookingState.REJECTED, 0, 10, null))
+                .thenReturn(BookingPageDto.builder().bookings(Collections.emptyList()).build());
         mvc.perform(get(URL + "/owner")
                         .header("X-Sharer-User-Id", 1)
                         .param("state", "REJECTED"))
@@ -254,13 +363,14 @@ class BookingControllerTest {
     @Test
     void testGetListBookerOfOwnerItemsOneObject() throws Exception {
         bookingOutDto = builderOut.build();
-        when(bookingService.getListBookerOfOwnerItems(1L, BookingState.WAITING))
-                .thenReturn(List.of(bookingOutDto));
+        when(bookingService.getListBookerOfOwnerItems(1L, BookingState.WAITING, 0, 1, "abc"))
+                .thenReturn(BookingPageDto.builder().bookings(List.of(bookingOutDto)).build());
         mvc.perform(get(URL + "/owner")
                         .header("X-Sharer-User-Id", 1)
                         .param("state", "WAITING")
                         .param("from", "0")
-                        .param("size", "1"))
+                        .param("size", "1")
+                        .param("cursor", "abc"))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
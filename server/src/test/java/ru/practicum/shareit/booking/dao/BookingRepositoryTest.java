@@ -0,0 +1,253 @@
+package ru.practicum.shareit.booking.dao;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+import ru.practicum.shareit.booking.enums.BookingPhase;
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingCursor;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dao.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingRepositoryTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private User booker;
+    private final List<Long> expectedIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = saveUser("owner");
+        booker = saveUser("booker");
+        saveBookings(23);
+    }
+
+    @Test
+    void keysetPagesCoverAllBookingsInOrder() {
+        List<Long> ids = new ArrayList<>();
+        ScrollPosition position = BookingCursor.toScrollPosition(0, 5, null);
+        Window<BookingObjectsDto> window;
+        do {
+            window = bookingRepository.findBookerBookings(booker.getId(), BookingState.ALL, BASE, position, 5);
+            window.forEach(booking -> ids.add(booking.getId()));
+            if (window.hasNext()) {
+                BookingObjectsDto last = window.getContent().get(window.size() - 1);
+                position = BookingCursor.toScrollPosition(0, 5, BookingCursor.encode(last.getStart(), last.getId()));
+            }
+        } while (window.hasNext());
+
+        assertEquals(expectedIds, ids);
+    }
+
+    @Test
+    void offsetPageStartsAtFrom() {
+        Window<BookingObjectsDto> window = bookingRepository.findOwnerBookings(owner.getId(), BookingState.WAITING,
+                BASE, BookingCursor.toScrollPosition(7, 4, null), 4);
+
+        assertEquals(expectedIds.subList(7, 11), window.map(BookingObjectsDto::getId).getContent());
+        assertTrue(window.hasNext());
+    }
+
+    @Test
+    void projectionFillsItemAndBooker() {
+        BookingObjectsDto booking = bookingRepository.findOwnerBookings(owner.getId(), BookingState.FUTURE, BASE,
+                ScrollPosition.keyset(), 1).getContent().get(0);
+
+        assertEquals(booker.getId(), booking.getBooker().getId());
+        assertEquals(booker.getEmail(), booking.getBooker().getEmail());
+        assertEquals("Item 22", booking.getItem().getName());
+        assertTrue(booking.getItem().getAvailable());
+        assertNull(booking.getItem().getRequestId());
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithList() {
+        assertEquals(1, countStatements(() -> bookingRepository.findBookerBookings(booker.getId(),
+                BookingState.ALL, BASE, ScrollPosition.keyset(), 100)));
+
+        saveBookings(60);
+
+        assertEquals(1, countStatements(() -> bookingRepository.findBookerBookings(booker.getId(),
+                BookingState.ALL, BASE, ScrollPosition.keyset(), 100)));
+        assertEquals(1, countStatements(() -> bookingRepository.findOwnerBookings(owner.getId(),
+                BookingState.FUTURE, BASE, ScrollPosition.keyset(), 100)));
+    }
+
+    @Test
+    void phaseAdvancesOnlyBookingsCrossingBoundary() {
+        LocalDateTime now = BASE.plusDays(3).plusMinutes(30);
+
+        assertEquals(9, bookingRepository.markPast(now));
+        assertEquals(3, bookingRepository.markCurrent(now));
+        assertEquals(0, bookingRepository.markPast(now) + bookingRepository.markCurrent(now));
+
+        assertStates(now, expectedIds.subList(11, 14), 9, 11);
+    }
+
+    @Test
+    void laggingPhaseStillGivesExactStates() {
+        LocalDateTime now = BASE.plusDays(3).plusMinutes(30);
+
+        assertStates(now, expectedIds.subList(11, 14), 9, 11);
+
+        bookingRepository.markPast(BASE.plusDays(1));
+        bookingRepository.markCurrent(BASE.plusDays(1));
+        entityManager.clear();
+
+        assertStates(now, expectedIds.subList(11, 14), 9, 11);
+    }
+
+    @Test
+    void boundariesAreStrict() {
+        LocalDateTime start = BASE.plusDays(3);
+        LocalDateTime end = start.plusHours(1);
+
+        assertEquals(9, bookingRepository.markPast(start));
+        assertEquals(0, bookingRepository.markCurrent(start));
+        assertStates(start, List.of(), 9, 11);
+
+        bookingRepository.markPast(end);
+        bookingRepository.markCurrent(end);
+        entityManager.clear();
+        assertEquals(BookingPhase.CURRENT, bookingRepository.findById(expectedIds.get(11)).orElseThrow().getPhase());
+        assertStates(end, List.of(), 9, 11);
+    }
+
+    @Test
+    void insertAllAssignsGeneratedIds() {
+        Item item = itemRepository.findItemsByOwnerId(owner.getId()).get(0);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Booking booking = new Booking();
+            booking.setStart(BASE.plusYears(1).plusDays(i));
+            booking.setEnd(BASE.plusYears(1).plusDays(i).plusHours(1));
+            booking.setItem(item);
+            booking.setBooker(booker);
+            booking.setStatus(BookingStatus.WAITING);
+            bookings.add(booking);
+        }
+
+        bookingRepository.insertAll(bookings);
+
+        for (Booking booking : bookings) {
+            assertNotNull(booking.getId());
+            Booking saved = bookingRepository.findById(booking.getId()).orElseThrow();
+            assertEquals(booking.getStart(), saved.getStart());
+            assertEquals(item.getId(), saved.getItem().getId());
+            assertEquals(BookingPhase.FUTURE, saved.getPhase());
+        }
+    }
+
+    @Test
+    void findLastAndNextReturnsOnlyNeighboursOfNow() {
+        Item item = itemRepository.findItemsByOwnerId(owner.getId()).get(0);
+        Item emptyItem = itemRepository.findItemsByOwnerId(owner.getId()).get(1);
+        LocalDateTime now = LocalDateTime.now();
+        saveBooking(item, now.minusDays(3), BookingStatus.APPROVED);
+        Booking last = saveBooking(item, now.minusDays(1), BookingStatus.APPROVED);
+        saveBooking(item, now.minusHours(1), BookingStatus.REJECTED);
+        Booking next = saveBooking(item, now.plusDays(1), BookingStatus.WAITING);
+        saveBooking(item, now.plusDays(2), BookingStatus.APPROVED);
+        bookingRepository.deleteAll(bookingRepository.findByItemId(emptyItem.getId()));
+
+        List<Booking> bookings = new ArrayList<>();
+        long statements = countStatements(() -> bookings.addAll(bookingRepository.findLastAndNextByItemIdIn(
+                List.of(item.getId(), emptyItem.getId()), List.of(BookingStatus.APPROVED, BookingStatus.WAITING), now)));
+
+        assertEquals(1, statements);
+        assertEquals(List.of(last.getId(), next.getId()), bookings.stream().map(Booking::getId).toList());
+    }
+
+    private Booking saveBooking(Item item, LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(1));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        return bookingRepository.save(booking);
+    }
+
+    private void assertStates(LocalDateTime now, List<Long> current, int past, int future) {
+        assertEquals(current, bookingRepository.findBookerBookings(booker.getId(), BookingState.CURRENT, now,
+                ScrollPosition.keyset(), 100).map(BookingObjectsDto::getId).getContent());
+        assertEquals(past, bookingRepository.findOwnerBookings(owner.getId(), BookingState.PAST, now,
+                ScrollPosition.keyset(), 100).size());
+        assertEquals(future, bookingRepository.findOwnerBookings(owner.getId(), BookingState.FUTURE, now,
+                ScrollPosition.keyset(), 100).size());
+    }
+
+    private long countStatements(Runnable call) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void saveBookings(int count) {
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Item item = new Item();
+            item.setName("Item " + i);
+            item.setDescription("desc");
+            item.setAvailable(true);
+            item.setOwner(owner);
+            item = itemRepository.save(item);
+
+            Booking booking = new Booking();
+            booking.setStart(BASE.plusDays(i / 3));
+            booking.setEnd(BASE.plusDays(i / 3).plusHours(1));
+            booking.setItem(item);
+            booking.setBooker(booker);
+            booking.setStatus(BookingStatus.WAITING);
+            bookings.add(bookingRepository.save(booking));
+        }
+        bookings.sort(Comparator.comparing(Booking::getStart).thenComparing(Booking::getId).reversed());
+        bookings.forEach(booking -> expectedIds.add(booking.getId()));
+    }
+
+    private User saveUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@mail.ru");
+        return userRepository.save(user);
+    }
+}
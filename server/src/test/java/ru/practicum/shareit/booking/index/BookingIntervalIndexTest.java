@@ -0,0 +1,138 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.transaction.TestTransaction;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dao.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class BookingIntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private BookingIntervalIndex index;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookingIntervalIndex(bookingRepository, true, 20, 100_000);
+
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@mail.ru");
+        owner = userRepository.save(owner);
+
+        booker = new User();
+        booker.setName("booker");
+        booker.setEmail("booker@mail.ru");
+        booker = userRepository.save(booker);
+
+        item = new Item();
+        item.setName("Drill");
+        item.setDescription("desc");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = itemRepository.save(item);
+    }
+
+    @Test
+    void hasOverlap_MatchesSqlQuery() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime start = BASE.plusHours(random.nextInt(5000));
+            BookingStatus status = random.nextInt(3) == 0 ? BookingStatus.WAITING : BookingStatus.APPROVED;
+            save(start, start.plusHours(1 + random.nextInt(48)), status);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime start = BASE.plusHours(random.nextInt(5200) - 100);
+            LocalDateTime end = start.plusHours(random.nextInt(24));
+            boolean expected = !bookingRepository.isAvailbleTime(item.getId(), start, end).isEmpty();
+            assertEquals(expected, index.hasOverlap(item.getId(), start, end), "[" + start + ", " + end + "]");
+        }
+    }
+
+    @Test
+    void hasOverlap_ReloadsItemsNotFittingIntoCache() {
+        index = new BookingIntervalIndex(bookingRepository, true, 20, 2);
+        for (int i = 0; i < 5; i++) {
+            save(BASE.plusDays(i), BASE.plusDays(i).plusHours(1), BookingStatus.APPROVED);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(index.hasOverlap(item.getId(), BASE.plusDays(i), BASE.plusDays(i).plusMinutes(30)));
+            assertFalse(index.hasOverlap(item.getId(), BASE.plusDays(i).plusHours(2), BASE.plusDays(i).plusHours(3)));
+        }
+    }
+
+    @Test
+    void hasOverlap_BoundariesAreInclusive() {
+        save(BASE, BASE.plusHours(2), BookingStatus.APPROVED);
+
+        assertTrue(index.hasOverlap(item.getId(), BASE.plusHours(2), BASE.plusHours(3)));
+        assertTrue(index.hasOverlap(item.getId(), BASE.minusHours(1), BASE));
+        assertFalse(index.hasOverlap(item.getId(), BASE.plusHours(2).plusSeconds(1), BASE.plusHours(3)));
+    }
+
+    @Test
+    void onStatusChanged_AppliedOnlyOnCommit() {
+        Booking booking = save(BASE, BASE.plusHours(2), BookingStatus.WAITING);
+        assertFalse(index.hasOverlap(item.getId(), BASE, BASE.plusHours(1)));
+
+        booking.setStatus(BookingStatus.APPROVED);
+        index.onStatusChanged(booking);
+        assertFalse(index.hasOverlap(item.getId(), BASE, BASE.plusHours(1)));
+
+        TestTransaction.end();
+        assertFalse(index.hasOverlap(item.getId(), BASE, BASE.plusHours(1)));
+
+        index.onStatusChanged(booking);
+        assertTrue(index.hasOverlap(item.getId(), BASE, BASE.plusHours(1)));
+
+        booking.setStatus(BookingStatus.REJECTED);
+        index.onStatusChanged(booking);
+        assertFalse(index.hasOverlap(item.getId(), BASE, BASE.plusHours(1)));
+    }
+
+    @Test
+    void checkAgainstDatabase_KeepsIndexEnabled() {
+        save(BASE, BASE.plusHours(2), BookingStatus.APPROVED);
+        save(BASE.plusHours(5), BASE.plusHours(6), BookingStatus.APPROVED);
+
+        index.checkAgainstDatabase();
+
+        assertTrue(index.isEnabled());
+    }
+
+    private Booking save(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        return bookingRepository.save(booking);
+    }
+}
@@ -0,0 +1,215 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingConfirmationDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.error.ValidationException;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookingServiceConcurrencyTest {
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void concurrentApprovalsOfOverlappingBookings_OnlyOneApproved() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookingIds.add(createBooking(createUser(), itemId, start.plusMinutes(i), start.plusHours(2)));
+        }
+
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(bookingIds.stream().<Callable<Void>>map(bookingId -> () -> {
+            try {
+                bookingService.confirmation(ownerId, true, bookingId, null);
+                approved.incrementAndGet();
+            } catch (ValidationException e) {
+                rejected.incrementAndGet();
+            }
+            return null;
+        }).toList());
+
+        assertEquals(1, approved.get());
+        assertEquals(THREADS - 1, rejected.get());
+        assertEquals(1, bookingRepository.findByItemIdAndStatusOrderByStartAsc(itemId, BookingStatus.APPROVED).size());
+    }
+
+    @Test
+    void concurrentBookingsOfDifferentItems_OneApprovedPerItem() throws Exception {
+        long ownerId = createUser();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long itemId = createItem(ownerId);
+            itemIds.add(itemId);
+            for (int j = 0; j < 3; j++) {
+                long bookerId = createUser();
+                tasks.add(() -> {
+                    try {
+                        long bookingId = createBooking(bookerId, itemId, start, start.plusHours(1));
+                        bookingService.confirmation(ownerId, true, bookingId, null);
+                    } catch (ValidationException ignored) {
+                        // другой поток уже подтвердил пересекающееся бронирование этой вещи
+                    }
+                    return null;
+                });
+            }
+        }
+
+        runConcurrently(tasks);
+
+        for (Long itemId : itemIds) {
+            assertEquals(1, bookingRepository.findByItemIdAndStatusOrderByStartAsc(itemId, BookingStatus.APPROVED).size());
+            assertFalse(bookingRepository.findByItemId(itemId).size() > 3);
+        }
+    }
+
+    @Test
+    void confirmAllOfOverlappingBookings_OnlyOneApproved() {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long otherItemId = createItem(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = List.of(
+                createBooking(createUser(), itemId, start, start.plusHours(2)),
+                createBooking(createUser(), itemId, start.plusHours(1), start.plusHours(3)),
+                createBooking(createUser(), otherItemId, start, start.plusHours(2)));
+
+        List<BookingConfirmationDto> result = bookingService.confirmAll(ownerId, true, bookingIds);
+
+        assertNull(result.get(0).getError());
+        assertNotNull(result.get(1).getError());
+        assertNull(result.get(2).getError());
+        assertEquals(1, bookingRepository.findByItemIdAndStatusOrderByStartAsc(itemId, BookingStatus.APPROVED).size());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(bookingIds.get(2)).orElseThrow().getStatus());
+    }
+
+    @Test
+    void concurrentUpdatesOfItemWithSameVersion_OnlyOneApplied() throws Exception {
+        long ownerId = createUser();
+        ItemDto item = itemService.create(ownerId, ItemDto.builder()
+                .name("Drill")
+                .description("desc")
+                .available(true)
+                .build());
+
+        AtomicInteger updated = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String description = "desc " + i;
+            tasks.add(() -> {
+                try {
+                    itemService.updateItem(ownerId, item.getId(), ItemDto.builder().description(description).build(),
+                            item.getVersion());
+                    updated.incrementAndGet();
+                } catch (OptimisticLockingFailureException e) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+
+        assertEquals(1, updated.get());
+        assertEquals(THREADS - 1, conflicts.get());
+        assertEquals(item.getVersion() + 1, itemRepository.findById(item.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void confirmationWithStaleVersion_Conflict() {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long bookingId = createBooking(createUser(), itemId, start, start.plusHours(1));
+        long version = bookingRepository.findById(bookingId).orElseThrow().getVersion();
+
+        bookingService.confirmation(ownerId, false, bookingId, version);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> bookingService.confirmation(ownerId, true, bookingId, version));
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(bookingId).orElseThrow().getStatus());
+    }
+
+    private void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch gate = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    gate.await();
+                    return task.call();
+                }));
+            }
+            gate.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long createUser() {
+        String name = UUID.randomUUID().toString();
+        return userService.create(UserDto.builder().name(name).email(name + "@mail.ru").build()).getId();
+    }
+
+    private long createItem(long ownerId) {
+        return itemService.create(ownerId, ItemDto.builder()
+                .name("Drill")
+                .description("desc")
+                .available(true)
+                .build()).getId();
+    }
+
+    private long createBooking(long bookerId, long itemId, LocalDateTime start, LocalDateTime end) {
+        return bookingService.createBooking(bookerId, BookingDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(end)
+                .build()).getId();
+    }
+}
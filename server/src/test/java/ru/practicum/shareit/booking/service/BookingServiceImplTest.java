@@ -3,31 +3,43 @@ package ru.practicum.shareit.booking.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingConfirmationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingObjectsDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.stream.BookingStream;
 import ru.practicum.shareit.error.AccessDeniedException;
 import ru.practicum.shareit.error.NotFoundException;
 import ru.practicum.shareit.error.ValidationException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dao.UserRepository;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,7 +54,12 @@ class BookingServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
 
-    @InjectMocks
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private BookingStream bookingStream;
+
     private BookingServiceImpl bookingService;
 
     private User user;
@@ -52,6 +69,8 @@ class BookingServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        bookingService = new BookingServiceImpl(bookingRepository, itemRepository,
+                new EntityLookup(userRepository, itemRepository, null), bookingIntervalIndex, bookingStream);
         user = new User();
         user.setId(1L);
         user.setName("Test User");
@@ -80,6 +99,7 @@ class BookingServiceImplTest {
         booking.setItem(item);
         booking.setBooker(user);
         booking.setStatus(BookingStatus.WAITING);
+        booking.setVersion(0L);
     }
 
     @Test
@@ -89,8 +109,8 @@ class BookingServiceImplTest {
         item.setOwner(owner);
 
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(bookingRepository.isAvailbleTime(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.hasOverlap(anyLong(), any(), any())).thenReturn(false);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
 
         BookingObjectsDto result = bookingService.createBooking(1L, bookingDto);
@@ -104,6 +124,78 @@ class BookingServiceImplTest {
         verify(bookingRepository, times(1)).save(any(Booking.class));
     }
 
+    @Test
+    void testCreateBooking_TimeOverlapsApprovedBooking() {
+        User owner = new User();
+        owner.setId(2L);
+        item.setOwner(owner);
+
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.hasOverlap(anyLong(), any(), any())).thenReturn(true);
+
+        ValidationException exception = assertThrows(ValidationException.class, () -> {
+            bookingService.createBooking(1L, bookingDto);
+        });
+
+        assertEquals("Время для бронирования недоступно", exception.getMessage());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testConfirmation_UpdatesIntervalIndex() {
+        when(bookingRepository.getBookerWithAll(anyLong())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
+
+        bookingService.confirmation(1L, true, 1L, null);
+
+        verify(bookingIntervalIndex, times(1)).onStatusChanged(booking);
+    }
+
+    @Test
+    void testCreateBookings_Success() {
+        User owner = new User();
+        owner.setId(2L);
+        item.setOwner(owner);
+        Item secondItem = new Item();
+        secondItem.setId(2L);
+        secondItem.setName("Second Item");
+        secondItem.setDescription("Second Description");
+        secondItem.setAvailable(true);
+        secondItem.setOwner(owner);
+        BookingDto secondDto = BookingDto.builder()
+                .start(bookingDto.getStart())
+                .end(bookingDto.getEnd())
+                .itemId(2L)
+                .build();
+
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findAllByIdForUpdate(Set.of(1L, 2L))).thenReturn(List.of(item, secondItem));
+        when(bookingRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BookingObjectsDto> result = bookingService.createBookings(1L, List.of(bookingDto, secondDto));
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getItem().getId());
+        assertEquals(2L, result.get(1).getItem().getId());
+        assertEquals(BookingStatus.WAITING, result.get(1).getStatus());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testCreateBookings_ItemNotFound() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findAllByIdForUpdate(any())).thenReturn(List.of());
+
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> {
+            bookingService.createBookings(1L, List.of(bookingDto));
+        });
+
+        assertEquals("Item с id = 1 не найден", exception.getMessage());
+        verify(bookingRepository, never()).insertAll(anyList());
+    }
+
     @Test
     void testCreateBooking_InvalidDates() {
         bookingDto.setStart(LocalDateTime.now().plusHours(2));
@@ -119,7 +211,7 @@ class BookingServiceImplTest {
     @Test
     void testCreateBooking_ItemNotAvailable() {
         item.setAvailable(false);
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             bookingService.createBooking(1L, bookingDto);
@@ -131,7 +223,7 @@ class BookingServiceImplTest {
     @Test
     void testCreateBooking_OwnerBooksOwnItem() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
 
         ValidationException exception = assertThrows(ValidationException.class, () -> {
             bookingService.createBooking(1L, bookingDto);
@@ -143,23 +235,123 @@ class BookingServiceImplTest {
     @Test
     void testConfirmation_SuccessApproved() {
         when(bookingRepository.getBookerWithAll(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
 
-        BookingObjectsDto result = bookingService.confirmation(1L, true, 1L);
+        BookingObjectsDto result = bookingService.confirmation(1L, true, 1L, null);
 
         assertNotNull(result);
         assertEquals(BookingStatus.APPROVED, result.getStatus());
     }
 
+    @Test
+    void testConfirmation_ApproveOverlapsApprovedBooking() {
+        when(bookingRepository.getBookerWithAll(anyLong())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.hasOverlap(anyLong(), any(), any())).thenReturn(true);
+
+        ValidationException exception = assertThrows(ValidationException.class, () -> {
+            bookingService.confirmation(1L, true, 1L, null);
+        });
+
+        assertEquals("Время для бронирования недоступно", exception.getMessage());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testConfirmAll_ReturnsOutcomePerId() {
+        Booking approvedBooking = new Booking();
+        approvedBooking.setId(2L);
+        approvedBooking.setStart(booking.getStart());
+        approvedBooking.setEnd(booking.getEnd());
+        approvedBooking.setItem(item);
+        approvedBooking.setBooker(user);
+        approvedBooking.setStatus(BookingStatus.APPROVED);
+        approvedBooking.setVersion(1L);
+        Booking overlapping = new Booking();
+        overlapping.setId(3L);
+        overlapping.setStart(booking.getStart().plusMinutes(30));
+        overlapping.setEnd(booking.getEnd().plusHours(1));
+        overlapping.setItem(item);
+        overlapping.setBooker(user);
+        overlapping.setStatus(BookingStatus.WAITING);
+        overlapping.setVersion(0L);
+
+        when(bookingRepository.findAllByItemOwnerIdAndIdIn(1L, Set.of(1L, 2L, 3L, 4L)))
+                .thenReturn(List.of(booking, approvedBooking, overlapping));
+        when(bookingRepository.updateStatus(BookingStatus.APPROVED, List.of(1L), 0L)).thenReturn(1);
+
+        List<BookingConfirmationDto> result = bookingService.confirmAll(1L, true, List.of(1L, 2L, 3L, 4L, 1L));
+
+        assertEquals(4, result.size());
+        assertEquals(BookingStatus.APPROVED, result.get(0).getStatus());
+        assertNull(result.get(0).getError());
+        assertEquals("Бронирование с id 2 уже подтверждено", result.get(1).getError());
+        assertEquals("Время для бронирования недоступно", result.get(2).getError());
+        assertEquals(BookingStatus.WAITING, result.get(2).getStatus());
+        assertNull(result.get(3).getStatus());
+        verify(itemRepository).findAllByIdForUpdate(Set.of(1L));
+        verify(bookingRepository).updateStatus(BookingStatus.APPROVED, List.of(1L), 0L);
+        verify(bookingIntervalIndex).onStatusChanged(1L, 1L, booking.getStart(), booking.getEnd(),
+                BookingStatus.APPROVED);
+    }
+
+    @Test
+    void testConfirmAll_NothingToUpdate() {
+        when(bookingRepository.findAllByItemOwnerIdAndIdIn(anyLong(), any())).thenReturn(List.of());
+
+        List<BookingConfirmationDto> result = bookingService.confirmAll(1L, false, List.of(5L));
+
+        assertEquals(1, result.size());
+        assertNotNull(result.get(0).getError());
+        verify(bookingRepository, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void testConfirmAll_ConflictWhenBookingChangedConcurrently() {
+        when(bookingRepository.findAllByItemOwnerIdAndIdIn(1L, Set.of(1L))).thenReturn(List.of(booking));
+        when(bookingRepository.updateStatus(BookingStatus.REJECTED, List.of(1L), 0L)).thenReturn(0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> bookingService.confirmAll(1L, false, List.of(1L)));
+
+        verify(itemRepository).findAllByIdForUpdate(Set.of(1L));
+        verify(bookingIntervalIndex, never()).onStatusChanged(anyLong(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void testConfirmation_PublishesToStream() {
+        when(bookingRepository.getBookerWithAll(anyLong())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
+
+        BookingObjectsDto result = bookingService.confirmation(1L, false, 1L, null);
+
+        verify(bookingStream, times(1)).publish(1L, result);
+    }
+
+    @Test
+    void testConfirmation_VersionMismatch() {
+        when(bookingRepository.getBookerWithAll(anyLong())).thenReturn(Optional.of(booking));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> bookingService.confirmation(1L, true, 1L, 5L));
+
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+    }
+
     @Test
     void testConfirmation_SuccessRejected() {
+        booking.setStatus(BookingStatus.APPROVED);
         when(bookingRepository.getBookerWithAll(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+        when(itemRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
 
-        BookingObjectsDto result = bookingService.confirmation(1L, false, 1L);
+        BookingObjectsDto result = bookingService.confirmation(1L, false, 1L, null);
 
         assertNotNull(result);
         assertEquals(BookingStatus.REJECTED, result.getStatus());
+        verify(itemRepository).findByIdForUpdate(item.getId());
     }
 
     @Test
@@ -167,7 +359,7 @@ class BookingServiceImplTest {
         when(bookingRepository.getBookerWithAll(anyLong())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class, () -> {
-            bookingService.confirmation(1L, true, 1L);
+            bookingService.confirmation(1L, true, 1L, null);
         });
 
         assertEquals("Booking не был найден по id = 1", exception.getMessage());
@@ -182,7 +374,7 @@ class BookingServiceImplTest {
         when(bookingRepository.getBookerWithAll(anyLong())).thenReturn(Optional.of(booking));
 
         AccessDeniedException exception = assertThrows(AccessDeniedException.class, () -> {
-            bookingService.confirmation(1L, true, 1L);
+            bookingService.confirmation(1L, true, 1L, null);
         });
 
         assertEquals("User id не является владельцем вещи", exception.getMessage());
@@ -213,22 +405,49 @@ class BookingServiceImplTest {
     void testGetListOfUserBooker_Success() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(anyLong())).thenReturn(Collections.singletonList(booking));
+        when(bookingRepository.findBookerBookings(anyLong(), any(), any(), any(), anyInt()))
+                .thenReturn(Window.from(List.of(BookingMapper.mapToBookingDtoOut(booking)), ScrollPosition::offset));
 
-        List<BookingObjectsDto> result = bookingService.getListOfUserBooker(1L, BookingState.ALL);
+        BookingPageDto result = bookingService.getListOfUserBooker(1L, BookingState.ALL, 0, 10, null);
 
         assertNotNull(result);
-        assertEquals(1, result.size());
+        assertEquals(1, result.getBookings().size());
+        assertNull(result.getNextCursor());
     }
 
     @Test
     void testGetListBookerOfOwnerItems_Success() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findByItemOwnerIdOrderByStartDesc(anyLong())).thenReturn(Collections.singletonList(booking));
+        when(bookingRepository.findOwnerBookings(anyLong(), any(), any(), any(), anyInt()))
+                .thenReturn(Window.from(List.of(BookingMapper.mapToBookingDtoOut(booking)), ScrollPosition::offset));
 
-        List<BookingObjectsDto> result = bookingService.getListBookerOfOwnerItems(1L, BookingState.ALL);
+        BookingPageDto result = bookingService.getListBookerOfOwnerItems(1L, BookingState.ALL, 0, 10, null);
 
         assertNotNull(result);
-        assertEquals(1, result.size());
+        assertEquals(1, result.getBookings().size());
+    }
+
+    @Test
+    void testGetListOfUserBooker_ReturnsCursorForNextPage() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findBookerBookings(anyLong(), any(), any(), any(), anyInt()))
+                .thenReturn(Window.from(List.of(BookingMapper.mapToBookingDtoOut(booking)), ScrollPosition::offset, true));
+
+        BookingPageDto result = bookingService.getListOfUserBooker(1L, BookingState.WAITING, 0, 1, null);
+        assertNotNull(result.getNextCursor());
+
+        bookingService.getListOfUserBooker(1L, BookingState.WAITING, 0, 1, result.getNextCursor());
+
+        verify(bookingRepository).findBookerBookings(eq(1L), eq(BookingState.WAITING), any(LocalDateTime.class),
+                eq(ScrollPosition.forward(Map.of("start", booking.getStart(), "id", booking.getId()))), eq(1));
+    }
+
+    @Test
+    void testGetListOfUserBooker_InvalidCursor() {
+        ValidationException exception = assertThrows(ValidationException.class, () -> {
+            bookingService.getListOfUserBooker(1L, BookingState.ALL, 0, 10, "not-a-cursor");
+        });
+
+        assertEquals("Некорректный курсор: not-a-cursor", exception.getMessage());
     }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package ru.practicum.shareit.booking.stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.error.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"shareit.booking.stream.heartbeat=200ms", "shareit.booking.stream.max-per-user=2",
+                "spring.datasource.hikari.maximum-pool-size=" + BookingStreamTest.POOL_SIZE,
+                "spring.datasource.hikari.connection-timeout=1000"})
+@ExtendWith(OutputCaptureExtension.class)
+class BookingStreamTest {
+    static final int POOL_SIZE = 2;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void bookerAndOwnerReceiveCommittedChanges() throws Exception {
+        long ownerId = createUser();
+        long bookerId = createUser();
+        long itemId = itemService.create(ownerId, ItemDto.builder()
+                .name("Дрель").description("Ударная").available(true).build()).getId();
+
+        try (BufferedReader bookerStream = subscribe(bookerId); BufferedReader ownerStream = subscribe(ownerId)) {
+            LocalDateTime start = LocalDateTime.now().plusDays(1);
+            long bookingId = bookingService.createBooking(bookerId, BookingDto.builder()
+                    .itemId(itemId).start(start).end(start.plusHours(1)).build()).getId();
+            // отклонённое подтверждение откатывается и не публикуется
+            bookingService.confirmation(ownerId, true, bookingId, null);
+            assertThrows(ValidationException.class, () -> bookingService.confirmation(ownerId, true, bookingId, null));
+
+            String created = nextEvent(bookerStream);
+            assertTrue(created.contains("\"id\":" + bookingId) && created.contains("\"status\":\"WAITING\""), created);
+            assertTrue(nextEvent(bookerStream).contains("\"status\":\"APPROVED\""));
+            assertTrue(nextEvent(ownerStream).contains("\"status\":\"WAITING\""));
+            assertTrue(nextEvent(ownerStream).contains("\"status\":\"APPROVED\""));
+            // дальше только комментарии-пинги: третьего события нет
+            assertNull(nextEvent(bookerStream, 3));
+        }
+    }
+
+    @Test
+    void unknownUserCannotSubscribe() throws Exception {
+        HttpResponse<Void> response = client.send(request(Long.MAX_VALUE), HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    void openStreamsDoNotHoldDatabaseConnections() throws Exception {
+        List<BufferedReader> streams = new ArrayList<>();
+        try {
+            for (int i = 0; i < POOL_SIZE * 2; i++) {
+                streams.add(subscribe(createUser()));
+            }
+            long userId = createUser();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/users/" + userId)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+        } finally {
+            for (BufferedReader stream : streams) {
+                stream.close();
+            }
+        }
+    }
+
+    @Test
+    void newStreamOverPerUserLimitClosesOldest() throws Exception {
+        long userId = createUser();
+        try (BufferedReader oldest = subscribe(userId); BufferedReader second = subscribe(userId);
+             BufferedReader third = subscribe(userId)) {
+            assertClosed(oldest);
+            assertNull(nextEvent(second, 2));
+            assertNull(nextEvent(third, 2));
+        }
+    }
+
+    @Test
+    void clientDisconnectIsNotAnError(CapturedOutput output) throws Exception {
+        subscribe(createUser()).close();
+        // на следующем пинге отправка обнаружит закрытое соединение
+        Thread.sleep(1000);
+
+        assertFalse(output.getOut().contains("ERROR"), output.getOut());
+        assertFalse(output.getOut().contains("HttpMessageNotWritableException"), output.getOut());
+    }
+
+    private BufferedReader subscribe(long userId) throws Exception {
+        HttpResponse<InputStream> response = client.send(request(userId), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/event-stream"));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+        // первый пинг означает, что подписка зарегистрирована и события не потеряются
+        assertEquals(":ping", readLine(reader));
+        return reader;
+    }
+
+    private HttpRequest request(long userId) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bookings/stream"))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header("Accept", "text/event-stream")
+                .build();
+    }
+
+    private String nextEvent(BufferedReader reader) throws Exception {
+        return nextEvent(reader, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return данные следующего события или null, если раньше пришло maxPings пингов
+     */
+    private String nextEvent(BufferedReader reader, int maxPings) throws Exception {
+        int pings = 0;
+        String line;
+        while ((line = readLine(reader)) != null) {
+            if (line.startsWith("data:")) {
+                return line.substring("data:".length());
+            }
+            if (line.startsWith(":") && ++pings >= maxPings) {
+                return null;
+            }
+        }
+        fail("Поток событий закрыт");
+        return null;
+    }
+
+    private void assertClosed(BufferedReader reader) throws Exception {
+        for (int i = 0; i < 10; i++) {
+            if (readLine(reader) == null) {
+                return;
+            }
+        }
+        fail("Поток событий не закрыт");
+    }
+
+    private String readLine(BufferedReader reader) throws Exception {
+        Future<String> line = executor.submit(reader::readLine);
+        return line.get(5, TimeUnit.SECONDS);
+    }
+
+    private long createUser() {
+        String name = UUID.randomUUID().toString();
+        return userService.create(UserDto.builder().name(name).email(name + "@mail.ru").build()).getId();
+    }
+}
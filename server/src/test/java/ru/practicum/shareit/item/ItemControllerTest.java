@@ -5,10 +5,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchPageDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentDto;
 import ru.practicum.shareit.item.service.ItemService;
 
@@ -16,6 +19,7 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -95,7 +99,7 @@ class ItemControllerTest {
                 .description("Updated Description")
                 .available(true)
                 .build();
-        when(itemService.updateItem(1L, 1L, updatedItemDto)).thenReturn(updatedItemDto);
+        when(itemService.updateItem(1L, 1L, updatedItemDto, null)).thenReturn(updatedItemDto);
 
         mockMvc.perform(patch("/items/1")
                         .header("X-Sharer-User-Id", 1L)
@@ -105,7 +109,7 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.name").value("Updated Item"))
                 .andExpect(jsonPath("$.description").value("Updated Description"));
 
-        verify(itemService, times(1)).updateItem(1L, 1L, updatedItemDto);
+        verify(itemService, times(1)).updateItem(1L, 1L, updatedItemDto, null);
     }
 
     @Test
@@ -115,18 +119,92 @@ class ItemControllerTest {
                 .name("Item 1")
                 .description("Description")
                 .available(true)
+                .version(2L)
                 .build();
+        when(itemService.getItemVersion(1L, 1L)).thenReturn(2L);
         when(itemService.getItem(1L, 1L)).thenReturn(item);
 
         mockMvc.perform(get("/items/1")
                         .header("X-Sharer-User-Id", 1L))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.name").value("Item 1"));
 
         verify(itemService, times(1)).getItem(1L, 1L);
     }
 
+    @Test
+    void getItemNotModifiedIsAnsweredByVersionOnly() throws Exception {
+        when(itemService.getItemVersion(2L, 1L)).thenReturn(2L);
+
+        mockMvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", 2L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+        verify(itemService, never()).getItem(anyLong(), anyLong());
+    }
+
+    @Test
+    void getItemEtagDependsOnCommentAuthorNames() throws Exception {
+        ItemWithCommentDto item = ItemWithCommentDto.builder().id(1L).version(2L).build();
+        item.addComment(CommentDto.builder().id(1L).text("Отлично").authorName("Анна").build());
+        item.addComment(CommentDto.builder().id(2L).text("Хорошо").authorName("Борис").build());
+        when(itemService.getItemVersion(2L, 1L)).thenReturn(2L);
+        when(itemService.getCommentAuthorNames(1L)).thenReturn(List.of("Анна", "Борис"));
+        when(itemService.getItem(2L, 1L)).thenReturn(item);
+
+        String etag = mockMvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", 2L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("\"2-"), etag);
+
+        when(itemService.getCommentAuthorNames(1L)).thenReturn(List.of("Борис", "Анна"));
+        mockMvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", 2L)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        when(itemService.getCommentAuthorNames(1L)).thenReturn(List.of("Аня", "Борис"));
+        mockMvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", 2L)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(itemService, times(2)).getItem(2L, 1L);
+    }
+
+    @Test
+    void getItemForOwnerQualifiesEtagWithBookings() throws Exception {
+        ItemWithCommentDto item = ItemWithCommentDto.builder()
+                .id(1L)
+                .name("Item 1")
+                .version(2L)
+                .nextBooking(BookingItemDto.builder().id(7L).build())
+                .build();
+        when(itemService.getItemVersion(1L, 1L)).thenReturn(null);
+        when(itemService.getItem(1L, 1L)).thenReturn(item);
+        when(itemService.updateItem(eq(1L), eq(1L), any(ItemDto.class), eq(2L))).thenReturn(ItemDto.builder().build());
+
+        mockMvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2-0-7\""));
+        mockMvc.perform(patch("/items/1")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"2-0-7\"")
+                        .contentType("application/json")
+                        .content("{\"name\":\"Updated Item\"}"))
+                .andExpect(status().isOk());
+
+        verify(itemService).updateItem(eq(1L), eq(1L), any(ItemDto.class), eq(2L));
+    }
+
     @Test
     void searchItems() throws Exception {
         ItemDto itemDto = ItemDto.builder()
@@ -135,15 +213,23 @@ class ItemControllerTest {
                 .description("Description")
                 .available(true)
                 .build();
-        when(itemService.searchByText("item", 1L)).thenReturn(Collections.singletonList(itemDto));
+        when(itemService.searchByText("item", 1L, 20, 5)).thenReturn(ItemSearchPageDto.builder()
+                .items(Collections.singletonList(itemDto))
+                .totalHits(1000)
+                .totalHitsCapped(true)
+                .build());
 
         mockMvc.perform(get("/items/search")
                         .header("X-Sharer-User-Id", 1L)
-                        .param("text", "item"))
+                        .param("text", "item")
+                        .param("from", "20")
+                        .param("size", "5"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(ItemController.TOTAL_COUNT_HEADER, "1000"))
+                .andExpect(header().string(ItemController.TOTAL_COUNT_CAPPED_HEADER, "true"))
                 .andExpect(jsonPath("$[0].name").value("Item 1"));
 
-        verify(itemService, times(1)).searchByText("item", 1L);
+        verify(itemService, times(1)).searchByText("item", 1L, 20, 5);
     }
 
     @Test
@@ -0,0 +1,245 @@
+package ru.practicum.shareit.item.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.transaction.TestTransaction;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchPageDto;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dao.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import(ItemSearchIndex.class)
+class ItemSearchIndexTest {
+    private static final String[] WORDS = {"дрель", "Перфоратор", "отвёртка", "Drill", "hammer", "screwdriver",
+            "пила", "saw", "Лестница", "ladder", "аккумуляторная", "cordless", "power", "дрели", "набор"};
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@mail.ru");
+        owner = userRepository.save(owner);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            saveItem(randomText(random, 2), randomText(random, 6), random.nextInt(5) > 0);
+        }
+        itemSearchIndex.rebuild();
+    }
+
+    @Test
+    void searchMatchesSqlLike() {
+        List<String> queries = new ArrayList<>(List.of("д", "ll", "дрел", "ДРЕЛЬ", "drill", "DrI", "ёрт", "power saw",
+                "ь п", "less", "ladder hammer", "аккумуляторная", "нет такого", "zz", "a"));
+        for (String word : WORDS) {
+            queries.add(word.substring(1, Math.min(word.length(), 5)));
+        }
+        for (String query : queries) {
+            assertEquals(sqlIds(query), indexIds(query), "query: " + query);
+        }
+    }
+
+    @Test
+    void updatesAreVisibleInSearchAfterCommit() {
+        TestTransaction.end();
+        TestTransaction.start();
+        Item item = new Item();
+        item.setId(100_000L);
+        item.setName("Уникальный фен");
+        item.setDescription("для волос");
+        item.setAvailable(true);
+        itemSearchIndex.onItemSaved(item);
+        assertTrue(indexIds("уникальный").isEmpty());
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertEquals(List.of(item.getId()), indexIds("уникальный"));
+
+        item.setName("Обычный фен");
+        itemSearchIndex.onItemSaved(item);
+        assertTrue(indexIds("уникальный").isEmpty());
+        assertEquals(List.of(item.getId()), indexIds("обычный"));
+
+        item.setAvailable(false);
+        itemSearchIndex.onItemSaved(item);
+        assertTrue(indexIds("обычный").isEmpty());
+
+        item.setAvailable(true);
+        itemSearchIndex.onItemSaved(item);
+        itemSearchIndex.onItemDeleted(item.getId());
+        assertTrue(indexIds("обычный").isEmpty());
+        assertTrue(indexIds("фен").isEmpty());
+    }
+
+    @Test
+    void lateUpdateDoesNotOverwriteNewerVersion() {
+        TestTransaction.end();
+        Item item = new Item();
+        item.setId(100_001L);
+        item.setName("Новый фен");
+        item.setDescription("для волос");
+        item.setAvailable(true);
+        item.setVersion(2L);
+        itemSearchIndex.onItemSaved(item);
+
+        item.setName("Старый фен");
+        item.setVersion(1L);
+        itemSearchIndex.onItemSaved(item);
+        assertTrue(indexIds("старый").isEmpty());
+        assertEquals(List.of(item.getId()), indexIds("новый"));
+
+        item.setAvailable(false);
+        item.setVersion(3L);
+        itemSearchIndex.onItemSaved(item);
+        item.setAvailable(true);
+        item.setVersion(2L);
+        itemSearchIndex.onItemSaved(item);
+        assertTrue(indexIds("фен").isEmpty());
+
+        item.setName("Снова новый фен");
+        item.setVersion(4L);
+        itemSearchIndex.onItemSaved(item);
+        assertEquals(List.of(item.getId()), indexIds("снова"));
+
+        itemSearchIndex.onItemDeleted(item.getId());
+        item.setVersion(5L);
+        itemSearchIndex.onItemSaved(item);
+        assertTrue(indexIds("фен").isEmpty());
+    }
+
+    @Test
+    void changesCommittedDuringRebuildAreKept() {
+        TestTransaction.end();
+        ItemRepository repository = mock(ItemRepository.class);
+        ItemSearchIndex index = new ItemSearchIndex(repository, true, 1000);
+        Item edited = new Item();
+        edited.setId(1L);
+        edited.setName("Старая дрель");
+        edited.setDescription("описание");
+        edited.setAvailable(true);
+        edited.setVersion(1L);
+        Item created = new Item();
+        created.setId(2L);
+        created.setName("Новая пила");
+        created.setDescription("описание");
+        created.setAvailable(true);
+        created.setVersion(0L);
+        when(repository.findAllByAvailableTrue()).thenAnswer(invocation -> {
+            Item snapshot = new Item();
+            snapshot.setId(1L);
+            snapshot.setName("Старая дрель");
+            snapshot.setDescription("описание");
+            snapshot.setAvailable(true);
+            snapshot.setVersion(1L);
+            // коммиты, закончившиеся после чтения снимка, но до его установки
+            edited.setName("Новая дрель");
+            edited.setVersion(2L);
+            index.onItemSaved(edited);
+            index.onItemSaved(created);
+            return List.of(snapshot);
+        });
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertTrue(rankedIds(index.search("старая", 0, 10)).isEmpty());
+        assertEquals(List.of(1L), rankedIds(index.search("новая дрель", 0, 10)));
+        assertEquals(List.of(2L), rankedIds(index.search("пила", 0, 10)));
+    }
+
+    @Test
+    void resultsAreRankedAndPaged() {
+        Item inDescription = saveItem("Инструмент", "шуруповёрт, отличный шуруповёрт", true);
+        Item onceInName = saveItem("Шуруповёрт", "компактный", true);
+        Item twiceInName = saveItem("Шуруповёрт и биты для шуруповёрта", "набор", true);
+        Item onceInDescription = saveItem("Инструмент", "шуруповёрт", true);
+        itemSearchIndex.rebuild();
+
+        List<Long> expected = List.of(twiceInName.getId(), onceInName.getId(), inDescription.getId(),
+                onceInDescription.getId());
+        assertEquals(expected, rankedIds(itemSearchIndex.search("ШУРУПОВЁРТ", 0, 10)));
+        assertEquals(expected.subList(1, 3), rankedIds(itemSearchIndex.search("шуруповёрт", 1, 2)));
+        assertTrue(itemSearchIndex.search("шуруповёрт", 10, 2).getItems().isEmpty());
+
+        ItemSearchIndex notBuilt = new ItemSearchIndex(itemRepository, true, 1000);
+        assertFalse(notBuilt.isReady());
+        assertEquals(expected, rankedIds(notBuilt.search("шуруповёрт", 0, 10)));
+    }
+
+    @Test
+    void totalHitsAreCapped() {
+        ItemSearchIndex capped = new ItemSearchIndex(itemRepository, true, 5);
+        capped.rebuild();
+
+        ItemSearchPageDto page = capped.search("a", 0, 3);
+
+        assertEquals(3, page.getItems().size());
+        assertEquals(5, page.getTotalHits());
+        assertTrue(page.isTotalHitsCapped());
+        assertEquals(sqlIds("a").size(), itemSearchIndex.search("a", 0, 3).getTotalHits());
+        assertFalse(itemSearchIndex.search("a", 0, 3).isTotalHitsCapped());
+    }
+
+    private List<Long> indexIds(String text) {
+        return rankedIds(itemSearchIndex.search(text, 0, Integer.MAX_VALUE)).stream()
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+
+    private static List<Long> rankedIds(ItemSearchPageDto page) {
+        return page.getItems().stream().map(ItemDto::getId).toList();
+    }
+
+    private List<Long> sqlIds(String text) {
+        return itemRepository.getListILikeByText(text.toLowerCase()).stream()
+                .map(Item::getId)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+
+    private Item saveItem(String name, String description, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return itemRepository.save(item);
+    }
+
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
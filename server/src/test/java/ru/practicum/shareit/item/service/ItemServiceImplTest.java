@@ -3,9 +3,9 @@ package ru.practicum.shareit.item.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.dao.BookingRepository;
 import ru.practicum.shareit.booking.enums.BookingStatus;
@@ -17,7 +17,11 @@ import ru.practicum.shareit.item.dao.CommentRepository;
 import ru.practicum.shareit.item.dao.ItemRepository;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemSearchPageDto;
 import ru.practicum.shareit.item.dto.ItemWithCommentDto;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dao.UserRepository;
 
@@ -46,7 +50,9 @@ class ItemServiceImplTest {
     @Mock
     private CommentRepository commentRepository;
 
-    @InjectMocks
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
     private ItemServiceImpl itemService;
 
     private User user;
@@ -58,6 +64,8 @@ class ItemServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        itemService = new ItemServiceImpl(itemRepository, bookingRepository, commentRepository,
+                new EntityLookup(userRepository, itemRepository, null), itemSearchIndex);
         user = new User();
         user.setId(1L);
         user.setName("User Name");
@@ -106,6 +114,27 @@ class ItemServiceImplTest {
         verify(itemRepository, times(1)).findItemsByOwnerId(anyLong());
     }
 
+    @Test
+    void getItemsByUserId_ShouldSetLastAndNextBookingWithOneQuery() {
+        Booking lastBooking = new Booking();
+        lastBooking.setId(2L);
+        lastBooking.setStart(LocalDateTime.now().minusDays(2));
+        lastBooking.setEnd(LocalDateTime.now().minusDays(1));
+        lastBooking.setItem(item);
+        lastBooking.setBooker(user);
+        lastBooking.setStatus(BookingStatus.APPROVED);
+        when(itemRepository.findItemsByOwnerId(anyLong())).thenReturn(List.of(item));
+        when(bookingRepository.findLastAndNextByItemIdIn(any(), any(), any()))
+                .thenReturn(List.of(lastBooking, booking));
+
+        List<ItemWithCommentDto> result = itemService.getItemsByUserId(1L);
+
+        assertEquals(1, result.size());
+        assertEquals(2L, result.get(0).getLastBooking().getId());
+        assertEquals(1L, result.get(0).getNextBooking().getId());
+        verify(bookingRepository, times(1)).findLastAndNextByItemIdIn(any(), any(), any());
+    }
+
     @Test
     void create_ShouldThrowValidationException_WhenAvailableIsNull() {
         itemDto = ItemDto.builder()
@@ -176,21 +205,22 @@ class ItemServiceImplTest {
 
     @Test
     void deleteByUserIdAndItemId_ShouldCallRepositoryDeleteMethod() {
-        doNothing().when(itemRepository).deleteByIdAndOwnerId(anyLong(), anyLong());
+        when(itemRepository.deleteByIdAndOwnerId(anyLong(), anyLong())).thenReturn(1L);
 
         itemService.deleteByUserIdAndItemId(1L, 1L);
 
         verify(itemRepository, times(1)).deleteByIdAndOwnerId(anyLong(), anyLong());
+        verify(itemSearchIndex, times(1)).onItemDeleted(1L);
     }
 
     @Test
     void updateItem_ShouldThrowNotFoundException_WhenItemNotFound() {
-        when(itemRepository.findByIdAndOwnerId(anyLong(), anyLong())).thenReturn(Optional.empty());
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> itemService.updateItem(1L, 1L, itemDto));
+                () -> itemService.updateItem(1L, 1L, itemDto, null));
 
-        assertEquals("Item не был найден", exception.getMessage());
+        assertEquals("Item с id = 1 не найден", exception.getMessage());
     }
 
     @Test
@@ -201,18 +231,39 @@ class ItemServiceImplTest {
                 .available(false)
                 .build();
 
-        when(itemRepository.findByIdAndOwnerId(anyLong(), anyLong())).thenReturn(Optional.of(item));
-        when(itemRepository.save(any(Item.class))).thenReturn(item);
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(itemRepository.saveAndFlush(any(Item.class))).thenReturn(item);
 
-        ItemDto result = itemService.updateItem(1L, 1L, itemDto);
+        ItemDto result = itemService.updateItem(1L, 1L, itemDto, null);
 
         assertNotNull(result);
         assertEquals(itemDto.getName(), result.getName());
         assertEquals(itemDto.getDescription(), result.getDescription());
         assertEquals(itemDto.getAvailable(), result.getAvailable());
 
-        verify(itemRepository, times(1)).findByIdAndOwnerId(anyLong(), anyLong());
-        verify(itemRepository, times(1)).save(any(Item.class));
+        verify(itemRepository, times(1)).findById(anyLong());
+        verify(itemRepository, times(1)).saveAndFlush(any(Item.class));
+    }
+
+    @Test
+    void updateItem_ShouldThrowNotFoundException_WhenUserIsNotOwner() {
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> itemService.updateItem(2L, 1L, itemDto, null));
+
+        assertEquals("Item не был найден", exception.getMessage());
+    }
+
+    @Test
+    void updateItem_ShouldThrowConflict_WhenVersionIsStale() {
+        item.setVersion(3L);
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> itemService.updateItem(1L, 1L, itemDto, 2L));
+
+        verify(itemRepository, never()).saveAndFlush(any(Item.class));
     }
 
 
@@ -229,7 +280,7 @@ class ItemServiceImplTest {
     @Test
     void getItem_ShouldReturnItemWithCommentDto_WhenItemFound() {
         when(itemRepository.findByIdFetch(anyLong())).thenReturn(Optional.of(item));
-        when(bookingRepository.findByItemIdAndStatusOrStatusOrderByStartAsc(anyLong(), any(BookingStatus.class), any(BookingStatus.class)))
+        when(bookingRepository.findLastAndNextByItemIdIn(any(), any(), any()))
                 .thenReturn(Collections.emptyList());
         when(commentRepository.findAllByItemIdOrderByCreatedDesc(anyLong())).thenReturn(Collections.emptyList());
 
@@ -239,10 +290,20 @@ class ItemServiceImplTest {
         assertEquals(item.getName(), result.getName());
         assertEquals(item.getDescription(), result.getDescription());
         verify(itemRepository, times(1)).findByIdFetch(anyLong());
-        verify(bookingRepository, times(1)).findByItemIdAndStatusOrStatusOrderByStartAsc(anyLong(), any(BookingStatus.class), any(BookingStatus.class));
+        verify(bookingRepository, times(1)).findLastAndNextByItemIdIn(any(), any(), any());
         verify(commentRepository, times(1)).findAllByItemIdOrderByCreatedDesc(anyLong());
     }
 
+    @Test
+    void getItemVersion_ShouldReturnVersionOnlyForNotOwner() {
+        item.setVersion(3L);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+
+        assertEquals(3L, itemService.getItemVersion(2L, 1L));
+        assertNull(itemService.getItemVersion(1L, 1L));
+        verifyNoInteractions(bookingRepository, commentRepository);
+    }
+
     @Test
     void getAll_ShouldReturnListOfItemDto() {
         when(itemRepository.findAll()).thenReturn(Collections.singletonList(item));
@@ -258,22 +319,31 @@ class ItemServiceImplTest {
 
     @Test
     void searchByText_ShouldReturnEmptyList_WhenTextIsBlank() {
-        List<ItemDto> result = itemService.searchByText("", 1L);
+        ItemSearchPageDto result = itemService.searchByText("", 1L, 0, 10);
 
-        assertTrue(result.isEmpty());
+        assertTrue(result.getItems().isEmpty());
+        verifyNoInteractions(itemSearchIndex);
     }
 
     @Test
-    void searchByText_ShouldReturnListOfItemDto_WhenTextIsNotBlank() {
-        when(itemRepository.getListILikeByText(anyString())).thenReturn(Collections.singletonList(item));
+    void searchByText_ShouldReturnPageFromIndex() {
+        ItemSearchPageDto page = ItemSearchPageDto.builder()
+                .items(List.of(ItemMapper.mapToItemDto(item)))
+                .totalHits(1)
+                .build();
+        when(itemSearchIndex.search("text", 0, 10)).thenReturn(page);
 
-        List<ItemDto> result = itemService.searchByText("text", 1L);
+        ItemSearchPageDto result = itemService.searchByText("text", 1L, 0, 10);
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(item.getName(), result.get(0).getName());
-        assertEquals(item.getDescription(), result.get(0).getDescription());
-        verify(itemRepository, times(1)).getListILikeByText(anyString());
+        assertEquals(1, result.getItems().size());
+        assertEquals(item.getName(), result.getItems().get(0).getName());
+        verify(itemRepository, never()).getListILikeByText(anyString());
+    }
+
+    @Test
+    void searchByText_ShouldThrowValidationException_WhenPagingIsInvalid() {
+        assertThrows(ValidationException.class, () -> itemService.searchByText("text", 1L, -1, 10));
+        assertThrows(ValidationException.class, () -> itemService.searchByText("text", 1L, 0, 0));
     }
 
     @Test
@@ -283,24 +353,24 @@ class ItemServiceImplTest {
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> itemService.createComment(1L, 1L, commentDto));
 
-        assertEquals("User не найден по id = 1", exception.getMessage());
+        assertEquals("User с id = 1 не найден", exception.getMessage());
     }
 
     @Test
     void createComment_ShouldThrowNotFoundException_WhenItemNotFound() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(itemRepository.findByIdIncrementingVersion(anyLong())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> itemService.createComment(1L, 1L, commentDto));
 
-        assertEquals("Item не найден по id = 1", exception.getMessage());
+        assertEquals("Item с id = 1 не найден", exception.getMessage());
     }
 
     @Test
     void createComment_ShouldThrowValidationException_WhenUserDidNotBookItem() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdIncrementingVersion(anyLong())).thenReturn(Optional.of(item));
         when(bookingRepository.findByBookerIdAndItemIdAndStatusAndStartIsBefore(anyLong(), anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
                 .thenReturn(Collections.emptyList());
 
@@ -313,7 +383,7 @@ class ItemServiceImplTest {
     @Test
     void createComment_ShouldThrowIllegalArgumentException_WhenTextIsBlank() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdIncrementingVersion(anyLong())).thenReturn(Optional.of(item));
         when(bookingRepository.findByBookerIdAndItemIdAndStatusAndStartIsBefore(anyLong(), anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
                 .thenReturn(Collections.singletonList(booking));
 
@@ -334,7 +404,7 @@ class ItemServiceImplTest {
                 .build();
 
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(itemRepository.findByIdIncrementingVersion(anyLong())).thenReturn(Optional.of(item));
         when(bookingRepository.findByBookerIdAndItemIdAndStatusAndStartIsBefore(anyLong(), anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
                 .thenReturn(Collections.singletonList(booking));
         when(commentRepository.save(any(Comment.class))).thenReturn(comment);
@@ -346,7 +416,8 @@ class ItemServiceImplTest {
         assertEquals(commentDto.getText(), result.getText());
 
         verify(userRepository, times(1)).findById(anyLong());
-        verify(itemRepository, times(1)).findById(anyLong());
+        verify(itemRepository, times(1)).findByIdIncrementingVersion(anyLong());
+        verify(itemSearchIndex).onItemSaved(item);
         verify(bookingRepository, times(1)).findByBookerIdAndItemIdAndStatusAndStartIsBefore(anyLong(), anyLong(), any(BookingStatus.class), any(LocalDateTime.class));
         verify(commentRepository, times(1)).save(any(Comment.class));
     }
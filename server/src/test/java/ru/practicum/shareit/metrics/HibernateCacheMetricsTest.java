@@ -0,0 +1,121 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dao.UserRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+})
+class HibernateCacheMetricsTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userId = userService.create(UserDto.builder().name("Иван").email(UUID.randomUUID() + "@mail.ru").build())
+                .getId();
+    }
+
+    @Test
+    void userIsReadFromCacheAndInvalidatedOnUpdate() {
+        userRepository.findById(userId);
+        statistics.clear();
+
+        User cached = userRepository.findById(userId).orElseThrow();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals("Иван", cached.getName());
+
+        userService.updateUser(userId, UserDto.builder().name("Пётр").build());
+
+        assertEquals("Пётр", userRepository.findById(userId).orElseThrow().getName());
+        assertEquals("Пётр", userService.getUserById(userId).getName());
+    }
+
+    @Test
+    void itemQueriesAreCachedAndInvalidatedOnUpdate() {
+        long itemId = itemService.create(userId, ItemDto.builder()
+                .name("Дрель").description("Ударная").available(true).build()).getId();
+        findItem(itemId);
+        findOwnerItems();
+        statistics.clear();
+
+        assertEquals("Дрель", findItem(itemId).getName());
+        assertEquals(1, findOwnerItems().size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getQueryCacheHitCount() >= 2);
+
+        itemService.updateItem(userId, itemId, ItemDto.builder().name("Шуруповёрт").build(), null);
+        itemService.create(userId, ItemDto.builder().name("Пила").description("Дисковая").available(true).build());
+
+        assertEquals("Шуруповёрт", findItem(itemId).getName());
+        assertEquals(2, findOwnerItems().size());
+    }
+
+    @Test
+    void hitsAndMissesAreExposedAsMeters() {
+        userRepository.findById(userId);
+        userRepository.findById(userId);
+
+        double hits = meterRegistry.get("hibernate.cache.requests")
+                .tags("region", User.class.getName(), "result", "hit")
+                .functionCounter().count();
+        assertTrue(hits >= 1);
+        assertNotNull(meterRegistry.get("hibernate.cache.requests")
+                .tags("region", "default-query-results-region", "result", "miss").functionCounter());
+        assertTrue(meterRegistry.get("hibernate.cache.hit.ratio")
+                .tags("region", User.class.getName()).gauge().value() > 0);
+    }
+
+    private Item findItem(long itemId) {
+        return transactionTemplate.execute(status -> itemRepository.findByIdFetch(itemId).orElseThrow());
+    }
+
+    private List<Item> findOwnerItems() {
+        return transactionTemplate.execute(status -> itemRepository.findItemsByOwnerId(userId));
+    }
+}
@@ -3,7 +3,6 @@ package ru.practicum.shareit.request.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
@@ -13,6 +12,7 @@ import ru.practicum.shareit.error.NotFoundException;
 import ru.practicum.shareit.error.ValidationException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.dao.ItemRequestRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -41,7 +41,6 @@ class ItemRequestServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
 
-    @InjectMocks
     private ItemRequestServiceImpl itemRequestService;
 
     private ItemRequestDto itemRequestDto;
@@ -51,6 +50,8 @@ class ItemRequestServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        itemRequestService = new ItemRequestServiceImpl(itemRequestRepository, itemRepository,
+                new EntityLookup(userRepository, itemRepository, itemRequestRepository));
         user = new User();
         user.setId(1L);
         user.setName("User");
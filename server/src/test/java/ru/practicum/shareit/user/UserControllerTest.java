@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -70,6 +71,37 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email", is(userDto.getEmail())));
     }
 
+    @Test
+    void testGetUserByIdRevalidatedWithEtag() throws Exception {
+        when(userService.getUserById(1L)).thenReturn(userDto);
+
+        String etag = mvc.perform(get(URL + "/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get(URL + "/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        userDto.setName("Artem Petrov");
+        mvc.perform(get(URL + "/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.name", is("Artem Petrov")));
+    }
+
+    @Test
+    void testGetAllUsersHasNoEtag() throws Exception {
+        when(userService.getList()).thenReturn(List.of(userDto));
+
+        mvc.perform(get(URL))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
     @Test
     void testGetUserByIdNotFound() throws Exception {
         when(userService.getUserById(99L)).thenThrow(new NotFoundException("User not found"));
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.user.index;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.user.dao.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void answersMaybeUntilLoaded() {
+        EmailBloomFilter filter = new EmailBloomFilter(mock(UserRepository.class), 1000, 0.01);
+
+        assertTrue(filter.mightContain("new@mail.ru"));
+    }
+
+    @Test
+    void hasNoFalseNegativesAndFewFalsePositives() {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            emails.add("user" + i + "@mail.ru");
+        }
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllEmails()).thenReturn(emails.subList(0, 5_000));
+        EmailBloomFilter filter = new EmailBloomFilter(userRepository, 10_000, 0.01);
+
+        filter.load();
+        emails.subList(5_000, 10_000).forEach(filter::put);
+
+        emails.forEach(email -> assertTrue(filter.mightContain(email), email));
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@yandex.ru")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
@@ -6,12 +6,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.shareit.error.EmailException;
 import ru.practicum.shareit.error.NotFoundException;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.index.EmailBloomFilter;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +27,9 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -53,7 +58,8 @@ class UserServiceImplTest {
 
     @Test
     void create_ShouldSaveUser() {
-        when(userRepository.findAll()).thenReturn(List.of());
+        when(emailBloomFilter.mightContain(user.getEmail())).thenReturn(true);
+        when(userRepository.existsByEmail(user.getEmail())).thenReturn(false);
         when(userRepository.save(any())).thenReturn(user);
 
         UserDto result = userService.create(userDto);
@@ -61,11 +67,33 @@ class UserServiceImplTest {
         assertNotNull(result);
         assertEquals(userDto, result);
         verify(userRepository, times(1)).save(any());
+        verify(emailBloomFilter, times(1)).put(user.getEmail());
+    }
+
+    @Test
+    void create_ShouldSkipExistsQuery_WhenFilterRulesEmailOut() {
+        when(emailBloomFilter.mightContain(user.getEmail())).thenReturn(false);
+        when(userRepository.save(any())).thenReturn(user);
+
+        userService.create(userDto);
+
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userRepository, never()).findAll();
     }
 
     @Test
     void create_ShouldThrowEmailException_WhenEmailExists() {
-        when(userRepository.findAll()).thenReturn(List.of(user));
+        when(emailBloomFilter.mightContain(user.getEmail())).thenReturn(true);
+        when(userRepository.existsByEmail(user.getEmail())).thenReturn(true);
+
+        assertThrows(EmailException.class, () -> userService.create(userDto));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void create_ShouldThrowEmailException_WhenUniqueConstraintFails() {
+        when(emailBloomFilter.mightContain(user.getEmail())).thenReturn(false);
+        when(userRepository.save(any())).thenThrow(new DataIntegrityViolationException("UNIQUE_USER_EMAIL"));
 
         assertThrows(EmailException.class, () -> userService.create(userDto));
     }
@@ -120,6 +148,28 @@ class UserServiceImplTest {
         verify(userRepository, times(1)).save(any());
     }
 
+    @Test
+    void updateUser_ShouldThrowEmailException_WhenEmailTakenByAnotherUser() {
+        UserDto updatedUserDto = UserDto.builder().email("taken@example.com").build();
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(emailBloomFilter.mightContain("taken@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("taken@example.com")).thenReturn(true);
+
+        assertThrows(EmailException.class, () -> userService.updateUser(user.getId(), updatedUserDto));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void updateUser_ShouldNotCheckEmail_WhenEmailUnchanged() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.save(any())).thenReturn(user);
+
+        userService.updateUser(user.getId(), userDto);
+
+        verify(emailBloomFilter, never()).mightContain(any());
+        verify(userRepository, never()).existsByEmail(any());
+    }
+
     @Test
     void updateUser_ShouldThrowNotFoundException_WhenUserNotFound() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -0,0 +1,213 @@
+package ru.practicum.shareit.web;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final String ITEM = "{\"name\": \"Дрель\", \"description\": \"Ударная\", \"available\": true}";
+    private static final String ITEM_HASH = IdempotencyFilter.hash(ITEM.getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private IdempotencyKeyStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private ItemService itemService;
+
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        String name = UUID.randomUUID().toString();
+        userId = userService.create(UserDto.builder().name(name).email(name + "@mail.ru").build()).getId();
+    }
+
+    @Test
+    void retryWithSameKeyReturnsOriginalResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String first = mvc.perform(createItem(key))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED))
+                .andReturn().getResponse().getContentAsString();
+
+        String retry = mvc.perform(createItem(key))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED, "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, retry);
+        verify(itemService, times(1)).create(anyLong(), any(ItemDto.class));
+    }
+
+    @Test
+    void differentKeysCreateDifferentItems() throws Exception {
+        mvc.perform(createItem(UUID.randomUUID().toString())).andExpect(status().isOk());
+        mvc.perform(createItem(UUID.randomUUID().toString())).andExpect(status().isOk());
+        mvc.perform(createItem(null)).andExpect(status().isOk());
+
+        verify(itemService, times(3)).create(anyLong(), any(ItemDto.class));
+    }
+
+    @Test
+    void failedRequestReleasesKey() throws Exception {
+        String key = UUID.randomUUID().toString();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        String booking = String.format("{\"itemId\": %d, \"start\": \"%s\", \"end\": \"%s\"}",
+                Long.MAX_VALUE, start, start.plusHours(1));
+
+        mvc.perform(post("/bookings").header(USER_HEADER, userId)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType(MediaType.APPLICATION_JSON).content(booking))
+                .andExpect(status().isNotFound());
+
+        assertTrue(store.find(userId, key).isEmpty());
+    }
+
+    @Test
+    void keyInProgressOrUsedElsewhereIsRejected() throws Exception {
+        String pending = UUID.randomUUID().toString();
+        assertTrue(store.reserve(userId, pending, "POST /items", ITEM_HASH).isPresent());
+        mvc.perform(createItem(pending))
+                .andExpect(status().isConflict());
+
+        String used = UUID.randomUUID().toString();
+        mvc.perform(createItem(used)).andExpect(status().isOk());
+        mvc.perform(post("/requests").header(USER_HEADER, userId)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, used)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"description\": \"Нужна дрель\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Ключ идемпотентности уже использован для запроса POST /items")));
+
+        verify(itemService, times(1)).create(anyLong(), any(ItemDto.class));
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejectedWith422() throws Exception {
+        String key = UUID.randomUUID().toString();
+        mvc.perform(createItem(key)).andExpect(status().isOk());
+
+        mvc.perform(post("/items").header(USER_HEADER, userId)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ITEM.replace("Дрель", "Пила")))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(itemService, times(1)).create(anyLong(), any(ItemDto.class));
+    }
+
+    @Test
+    void keyPendingLongerThanLeaseIsTakenOver() throws Exception {
+        String key = UUID.randomUUID().toString();
+        IdempotencyKeyStore.Reservation lost = store.reserve(userId, key, "POST /items", ITEM_HASH).orElseThrow();
+        jdbcTemplate.update("UPDATE idempotency_keys SET reserved_at = ? WHERE user_id = ? AND idempotency_key = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)), userId, key);
+
+        String body = mvc.perform(createItem(key))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        // запрос, потерявший ключ, не перезаписывает ответ и не освобождает ключ
+        store.complete(lost, new IdempotencyKeyStore.StoredResponse("POST /items", ITEM_HASH, 200, null, "{}"));
+        store.release(lost);
+
+        assertEquals(body, store.find(userId, key).orElseThrow().body());
+        verify(itemService, times(1)).create(anyLong(), any(ItemDto.class));
+    }
+
+    @Test
+    void keyTakenOverAfterTtlIsNotDeletedAsExpired() {
+        String key = UUID.randomUUID().toString();
+        store.reserve(userId, key, "POST /items", ITEM_HASH).orElseThrow();
+        Timestamp twoDaysAgo = Timestamp.valueOf(LocalDateTime.now().minusDays(2));
+        jdbcTemplate.update("UPDATE idempotency_keys SET created = ?, reserved_at = ? " +
+                "WHERE user_id = ? AND idempotency_key = ?", twoDaysAgo, twoDaysAgo, userId, key);
+
+        assertTrue(store.reserve(userId, key, "POST /items", ITEM_HASH).isPresent());
+
+        // перехвативший запрос ещё выполняется: ключ виден как занятый и не занимается повтором
+        assertTrue(store.find(userId, key).orElseThrow().isPending());
+        assertTrue(store.reserve(userId, key, "POST /items", ITEM_HASH).isEmpty());
+    }
+
+    @Test
+    void bufferedBodyIsDeliveredToReadListener() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(ITEM.getBytes(StandardCharsets.UTF_8));
+        ServletInputStream in = new IdempotencyFilter.BufferedBodyRequest(request).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allRead = new AtomicBoolean();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[16];
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(buffer, 0, in.read(buffer));
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+        });
+
+        assertTrue(allRead.get());
+        assertEquals(ITEM, read.toString(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletRequestBuilder createItem(String key) {
+        MockHttpServletRequestBuilder request = post("/items").header(USER_HEADER, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ITEM);
+        return key != null ? request.header(IdempotencyFilter.IDEMPOTENCY_KEY, key) : request;
+    }
+}